@@ -0,0 +1,78 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    벤치마크용 애플리케이션 구동 / 데이터 적재.
+    TCP H2 서버 대신 인메모리 H2를 사용하고, SQL 로그와 p6spy 는 측정에 영향을 주므로 끈다.
+*/
+public final class BenchmarkSupport {
+
+    private static final String[] DEFAULT_ARGS = {
+            "--spring.profiles.active=bench",
+            "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+            //같은 JVM 의 인메모리 DB 를 R2DBC 로도 연다.
+            "--spring.r2dbc.url=r2dbc:h2:mem:///bench",
+            "--spring.main.web-application-type=none",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--decorator.datasource.enabled=false",
+            //메모리 인덱스가 검색 / 카운트를 대신하지 않도록 끈다. 필요한 벤치마크에서 다시 켠다.
+            "--app.columnar-index.enabled=false",
+            "--app.bitmap-count.enabled=false",
+            "--app.team-stats.enabled=false",
+            "--logging.level.root=warn",
+            "--logging.level.org.hibernate.SQL=warn",
+            "--logging.level.org.hibernate.type=warn"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    //뒤에 전달된 인자가 앞의 기본값을 덮어쓴다.
+    public static ConfigurableApplicationContext start(String... args) {
+        List<String> merged = new ArrayList<>(Arrays.asList(DEFAULT_ARGS));
+        merged.addAll(Arrays.asList(args));
+        return SpringApplication.run(QuerydslApplication.class, merged.toArray(new String[0]));
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int teamCount, int memberCount) {
+        EntityManager entityManager = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Long> teamIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < teamCount; i++) {
+                Team team = new Team("team" + i);
+                entityManager.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        int batchSize = 1_000;
+        for (int from = 0; from < memberCount; from += batchSize) {
+            int start = from;
+            int end = Math.min(memberCount, from + batchSize);
+            transactionTemplate.execute(status -> {
+                for (int i = start; i < end; i++) {
+                    //연관관계 편의 메소드(changeTeam)는 팀의 컬렉션을 건드리므로 적재할때는 FK만 설정한다.
+                    Member member = new Member("member" + i, i % 100);
+                    member.setTeam(entityManager.getReference(Team.class, teamIds.get(i % teamIds.size())));
+                    entityManager.persist(member);
+                }
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+import study.querydsl.dto.MemberTeamColumnsJsonWriter;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJdbcRepository;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    List<MemberTeamDto> vs MemberTeamColumns 할당량 비교. (검색 + JSON 출력)
+    gc.alloc.rate.norm(호출 1회당 할당 바이트)을 비교한다.
+    ./gradlew jmh -PjmhArgs="ColumnarResultBenchmark -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ColumnarResultBenchmark {
+
+    @Param({"100000", "1000000"})
+    int memberCount;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    MemberJdbcRepository memberJdbcRepository;
+    ObjectMapper objectMapper;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        BenchmarkSupport.seed(context, 100, memberCount);
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberJdbcRepository = context.getBean(MemberJdbcRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        //전체 조회
+        condition = new MemberSearchCondition();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dtoList() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public MemberTeamColumns columns() {
+        return memberJdbcRepository.searchColumns(condition);
+    }
+
+    @Benchmark
+    public long dtoListJson() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, memberJpaRepository.search(condition));
+        return out.count;
+    }
+
+    @Benchmark
+    public long columnsJson() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        MemberTeamColumnsJsonWriter.write(memberJdbcRepository.searchColumns(condition), generator);
+        generator.flush();
+        return out.count;
+    }
+
+    //출력은 버리고 바이트 수만 센다.
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
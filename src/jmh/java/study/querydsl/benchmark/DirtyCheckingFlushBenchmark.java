@@ -0,0 +1,92 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    로딩한 회원 일부를 수정하고 flush 하는 작업의 flush 비용 측정.
+    bytecode enhancement 적용/미적용 빌드를 각각 실행해서 비교한다.
+      ./gradlew jmh -PjmhArgs="DirtyCheckingFlushBenchmark"
+      ./gradlew jmh -PjmhArgs="DirtyCheckingFlushBenchmark" -PhibernateEnhance=false
+    미적용시 flush 는 영속성 컨텍스트의 모든 엔티티를 스냅샷과 비교하고,
+    적용시에는 변경이 기록된 엔티티만 확인하므로 dirtyRatio 가 낮을수록 차이가 커진다.
+*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DirtyCheckingFlushBenchmark {
+
+    @Param({"10000"})
+    int memberCount;
+
+    @Param({"0.01", "0.1", "1.0"})
+    double dirtyRatio;
+
+    ConfigurableApplicationContext context;
+    EntityManager entityManager;
+    PlatformTransactionManager transactionManager;
+    TransactionStatus transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        BenchmarkSupport.seed(context, 10, memberCount);
+
+        entityManager = context.getBean(EntityManager.class);
+        transactionManager = context.getBean(PlatformTransactionManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //회원 로딩과 수정은 측정에서 제외하고 flush 만 측정한다.
+    @Setup(Level.Invocation)
+    public void loadAndEdit() {
+        transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        List<Member> members = entityManager
+                .createQuery("select m from Member m", Member.class)
+                .getResultList();
+
+        int step = Math.max(1, (int) Math.round(1 / dirtyRatio));
+        for (int i = 0; i < members.size(); i += step) {
+            Member findMember = members.get(i);
+            findMember.setAge(findMember.getAge() + 1);
+        }
+    }
+
+    //측정 데이터가 누적 변경되지 않도록 롤백.
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        transactionManager.rollback(transaction);
+    }
+
+    @Benchmark
+    public void flush() {
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.repository.support.DirectProjection;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/*
+    DTO 프로젝션의 행당 생성 비용 비교. (DB 조회 없이 FactoryExpression.newInstance 만 측정)
+    bean(setter) / fields(필드 주입) / constructor / @QueryProjection / DirectProjection(LambdaMetafactory) / 직접 생성(기준값)
+    ./gradlew jmh -PjmhArgs="DtoProjectionBenchmark -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@OperationsPerInvocation(DtoProjectionBenchmark.ROWS)
+public class DtoProjectionBenchmark {
+
+    static final int ROWS = 1_000;
+
+    Object[][] rows;
+
+    FactoryExpression<MemberDto> bean;
+    FactoryExpression<MemberDto> fields;
+    FactoryExpression<MemberDto> constructor;
+    FactoryExpression<MemberDto> queryProjection;
+    FactoryExpression<MemberDto> direct;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{"member" + i, i % 100};
+        }
+
+        bean = Projections.bean(MemberDto.class, member.username, member.age);
+        fields = Projections.fields(MemberDto.class, member.username, member.age);
+        constructor = Projections.constructor(MemberDto.class, member.username, member.age);
+        queryProjection = new QMemberDto(member.username, member.age);
+        direct = DirectProjection.of(MemberDto.class, member.username, member.age);
+    }
+
+    @Benchmark
+    public void bean(Blackhole blackhole) {
+        map(bean, blackhole);
+    }
+
+    @Benchmark
+    public void fields(Blackhole blackhole) {
+        map(fields, blackhole);
+    }
+
+    @Benchmark
+    public void constructor(Blackhole blackhole) {
+        map(constructor, blackhole);
+    }
+
+    @Benchmark
+    public void queryProjection(Blackhole blackhole) {
+        map(queryProjection, blackhole);
+    }
+
+    @Benchmark
+    public void direct(Blackhole blackhole) {
+        map(direct, blackhole);
+    }
+
+    @Benchmark
+    public void handwritten(Blackhole blackhole) {
+        for (Object[] row : rows) {
+            blackhole.consume(new MemberDto((String) row[0], (Integer) row[1]));
+        }
+    }
+
+    private void map(FactoryExpression<MemberDto> projection, Blackhole blackhole) {
+        for (Object[] row : rows) {
+            blackhole.consume(projection.newInstance(row));
+        }
+    }
+}
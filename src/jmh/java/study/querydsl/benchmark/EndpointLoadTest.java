@@ -0,0 +1,393 @@
+package study.querydsl.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    MemberController 엔드포인트(/v1, /v2, /v3/members) 부하 테스트.
+    인메모리 H2 에 데이터를 적재한 애플리케이션을 띄우고, 설정한 동시 요청 수 / 엔드포인트 비율 / 조건 분포로 요청을 보낸다.
+    지연은 엔드포인트별 HdrHistogram 으로 기록하고(p50 / p99 / p99.9), SLO(load-test.properties 의 slo.*)를 넘으면 종료 코드 1 로 끝난다.
+
+    ./gradlew loadTest -PloadTestArgs="--concurrency=64 --duration=PT1M"
+    --app.* / --spring.* / --server.* 인자는 애플리케이션 설정으로 넘긴다. (예 : --app.search.backend=sql)
+*/
+public final class EndpointLoadTest {
+
+    //기록 가능한 최대 지연 (넘으면 최대값으로 기록)
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    enum Endpoint {
+        V1("v1", "/v1/members", false),
+        V2("v2", "/v2/members", true),
+        V3("v3", "/v3/members", true);
+
+        private final String key;
+        private final String path;
+        private final boolean paged;
+
+        Endpoint(String key, String path, boolean paged) {
+            this.key = key;
+            this.path = path;
+            this.paged = paged;
+        }
+    }
+
+    private EndpointLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> appArgs = new ArrayList<>();
+        Properties config = load(args, appArgs);
+
+        int teams = Integer.parseInt(config.getProperty("teams"));
+        int members = Integer.parseInt(config.getProperty("members"));
+        int concurrency = Integer.parseInt(config.getProperty("concurrency"));
+        double rate = Double.parseDouble(config.getProperty("rate", "0"));
+        Duration warmup = Duration.parse(config.getProperty("warmup"));
+        Duration duration = Duration.parse(config.getProperty("duration"));
+
+        //운영과 같게 메모리 인덱스를 켠다. (BenchmarkSupport 기본값은 끔)
+        appArgs.add(0, "--spring.main.web-application-type=servlet");
+        appArgs.add(1, "--server.port=0");
+        appArgs.add(2, "--app.columnar-index.enabled=true");
+        appArgs.add(3, "--app.bitmap-count.enabled=true");
+        appArgs.add(4, "--app.team-stats.enabled=true");
+        //keep-alive 커넥션을 동시 요청 수만큼 유지한다. (기본 5)
+        System.setProperty("http.maxConnections", String.valueOf(concurrency));
+
+        ConfigurableApplicationContext context = BenchmarkSupport.start(appArgs.toArray(new String[0]));
+        int exitCode;
+        try {
+            BenchmarkSupport.seed(context, teams, members);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            Workload workload = new Workload(config, teams, members);
+            System.out.printf("concurrency=%d, rate=%s, warmup=%s, duration=%s, teams=%d, members=%d%n",
+                    concurrency, rate > 0 ? rate + "/s" : "closed-loop", warmup, duration, teams, members);
+
+            //워밍업 결과는 버린다.
+            drive(baseUrl, workload, concurrency, rate, warmup);
+            Map<Endpoint, Stats> stats = drive(baseUrl, workload, concurrency, rate, duration);
+
+            report(stats, duration, config);
+            List<String> violations = checkSlo(stats, duration, config);
+            for (String violation : violations) {
+                System.out.println("SLO violated : " + violation);
+            }
+            exitCode = violations.isEmpty() ? 0 : 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private static Map<Endpoint, Stats> drive(String baseUrl, Workload workload, int concurrency, double rate,
+                                              Duration duration) throws Exception {
+        Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+        //rate 가 있으면 사용자마다 rate / concurrency 간격으로 보낸다.
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * concurrency / rate) : 0;
+        long end = System.nanoTime() + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> users = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                users.add(executor.submit(() -> {
+                    long next = System.nanoTime();
+                    while (System.nanoTime() < end) {
+                        if (intervalNanos > 0) {
+                            long wait = next - System.nanoTime();
+                            if (wait > 0) {
+                                TimeUnit.NANOSECONDS.sleep(wait);
+                            }
+                        }
+                        Endpoint endpoint = workload.endpoint();
+                        String url = baseUrl + endpoint.path + "?" + workload.query(endpoint);
+                        long start = System.nanoTime();
+                        int status = get(url);
+                        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                        stats.get(endpoint).record(latencyMicros, status, TimeUnit.NANOSECONDS.toMicros(intervalNanos));
+                        next += intervalNanos;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> user : users) {
+                user.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return stats;
+    }
+
+    //응답 본문을 끝까지 읽어야 keep-alive 커넥션이 재사용된다. 연결 실패는 -1
+    private static int get(String url) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(5_000);
+            connection.setReadTimeout(60_000);
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (InputStream in = body) {
+                    byte[] buffer = new byte[8 * 1024];
+                    while (in.read(buffer) >= 0) {
+                        //버린다.
+                    }
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return -1;
+        }
+    }
+
+    private static void report(Map<Endpoint, Stats> stats, Duration duration, Properties config) throws IOException {
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("%-4s %10s %10s %9s %9s %9s %9s %8s %8s%n",
+                "", "requests", "req/s", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "errors", "503");
+        long total = 0;
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Stats endpointStats = entry.getValue();
+            Histogram histogram = endpointStats.histogram;
+            total += endpointStats.requests.sum();
+            System.out.printf("%-4s %10d %10.1f %9.1f %9.1f %9.1f %9.1f %8d %8d%n",
+                    entry.getKey().key, endpointStats.requests.sum(), endpointStats.requests.sum() / seconds,
+                    millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0, endpointStats.errors.sum(), endpointStats.rejected.sum());
+        }
+        System.out.printf("total %9d %10.1f%n", total, total / seconds);
+
+        String histogramDir = config.getProperty("histogram-dir", "");
+        if (!histogramDir.isEmpty()) {
+            File dir = new File(histogramDir);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+                try (PrintStream out = new PrintStream(new File(dir, entry.getKey().key + ".hgrm"), "UTF-8")) {
+                    //마이크로초 -> 밀리초
+                    entry.getValue().histogram.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+            System.out.println("histograms : " + dir.getAbsolutePath());
+        }
+    }
+
+    private static List<String> checkSlo(Map<Endpoint, Stats> stats, Duration duration, Properties config) {
+        List<String> violations = new ArrayList<>();
+        long requests = 0;
+        long failures = 0;
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Endpoint endpoint = entry.getKey();
+            Stats endpointStats = entry.getValue();
+            requests += endpointStats.requests.sum();
+            failures += endpointStats.errors.sum() + endpointStats.rejected.sum();
+            for (String percentile : new String[]{"p50", "p99", "p99.9"}) {
+                String limit = config.getProperty("slo." + endpoint.key + "." + percentile);
+                if (limit == null || endpointStats.requests.sum() == 0) {
+                    continue;
+                }
+                double actual = millis(endpointStats.histogram, Double.parseDouble(percentile.substring(1)));
+                if (actual > Double.parseDouble(limit)) {
+                    violations.add(String.format("%s %s %.1fms > %sms", endpoint.key, percentile, actual, limit));
+                }
+            }
+        }
+        String minThroughput = config.getProperty("slo.throughput");
+        double throughput = requests / (duration.toMillis() / 1000.0);
+        if (minThroughput != null && throughput < Double.parseDouble(minThroughput)) {
+            violations.add(String.format("throughput %.1f/s < %s/s", throughput, minThroughput));
+        }
+        String maxErrorRate = config.getProperty("slo.error-rate");
+        double errorRate = requests == 0 ? 1.0 : (double) failures / requests;
+        if (maxErrorRate != null && errorRate > Double.parseDouble(maxErrorRate)) {
+            violations.add(String.format("error rate %.4f > %s", errorRate, maxErrorRate));
+        }
+        return violations;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    //기본 설정 < --config 파일 < --key=value. 애플리케이션 설정 인자는 appArgs 로 모은다.
+    private static Properties load(String[] args, List<String> appArgs) throws IOException {
+        Properties config = new Properties();
+        try (InputStream in = EndpointLoadTest.class.getResourceAsStream("/load-test.properties")) {
+            config.load(in);
+        }
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            if (arg.startsWith("--app.") || arg.startsWith("--spring.") || arg.startsWith("--server.")) {
+                appArgs.add(arg);
+                continue;
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value: " + arg);
+            }
+            overrides.setProperty(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        String file = overrides.getProperty("config");
+        if (file != null) {
+            try (InputStream in = new FileInputStream(file)) {
+                config.load(in);
+            }
+        }
+        config.putAll(overrides);
+        return config;
+    }
+
+    //엔드포인트 비율 / 조건 분포에 따라 요청을 만든다.
+    private static final class Workload {
+        private final WeightedChoice<Endpoint> endpoints = new WeightedChoice<>();
+        private final WeightedChoice<String> conditions = new WeightedChoice<>();
+        private final int teams;
+        private final int members;
+        private final int pageSize;
+        private final int maxPage;
+
+        private Workload(Properties config, int teams, int members) {
+            this.teams = teams;
+            this.members = members;
+            this.pageSize = Integer.parseInt(config.getProperty("page-size"));
+            this.maxPage = Integer.parseInt(config.getProperty("max-page"));
+            for (Endpoint endpoint : Endpoint.values()) {
+                endpoints.add(endpoint, Integer.parseInt(config.getProperty("mix." + endpoint.key, "0")));
+            }
+            for (String kind : new String[]{"username", "usernames", "team", "team-age", "age", "none"}) {
+                conditions.add(kind, Integer.parseInt(config.getProperty("conditions." + kind, "0")));
+            }
+        }
+
+        private Endpoint endpoint() {
+            return endpoints.pick();
+        }
+
+        //BenchmarkSupport.seed : username = member{i}, age = i % 100, team = team{i % teams}
+        private String query(Endpoint endpoint) throws UnsupportedEncodingException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            StringBuilder query = new StringBuilder();
+            switch (conditions.pick()) {
+                case "username":
+                    param(query, "username", "member" + random.nextInt(members));
+                    break;
+                case "usernames":
+                    StringBuilder usernames = new StringBuilder();
+                    for (int i = 0; i < 10; i++) {
+                        usernames.append(i == 0 ? "" : ",").append("member").append(random.nextInt(members));
+                    }
+                    param(query, "usernames", usernames.toString());
+                    break;
+                case "team":
+                    param(query, "teamName", "team" + random.nextInt(teams));
+                    break;
+                case "team-age":
+                    int from = random.nextInt(90);
+                    param(query, "teamName", "team" + random.nextInt(teams));
+                    param(query, "ageGoe", String.valueOf(from));
+                    param(query, "ageLoe", String.valueOf(from + 9));
+                    break;
+                case "age":
+                    int ageGoe = random.nextInt(100);
+                    param(query, "ageGoe", String.valueOf(ageGoe));
+                    param(query, "ageLoe", String.valueOf(ageGoe + random.nextInt(20)));
+                    break;
+                default:
+                    break;
+            }
+            if (endpoint.paged) {
+                param(query, "page", String.valueOf(random.nextInt(maxPage)));
+                param(query, "size", String.valueOf(pageSize));
+            }
+            return query.toString();
+        }
+
+        private static void param(StringBuilder query, String name, String value) throws UnsupportedEncodingException {
+            query.append(query.length() == 0 ? "" : "&").append(name).append('=').append(URLEncoder.encode(value, "UTF-8"));
+        }
+    }
+
+    private static final class WeightedChoice<T> {
+        private final List<T> items = new ArrayList<>();
+        private final List<Integer> cumulativeWeights = new ArrayList<>();
+        private int totalWeight;
+
+        private void add(T item, int weight) {
+            if (weight <= 0) {
+                return;
+            }
+            totalWeight += weight;
+            items.add(item);
+            cumulativeWeights.add(totalWeight);
+        }
+
+        private T pick() {
+            if (totalWeight == 0) {
+                throw new IllegalStateException("All weights are zero");
+            }
+            int value = ThreadLocalRandom.current().nextInt(totalWeight);
+            for (int i = 0; i < items.size(); i++) {
+                if (value < cumulativeWeights.get(i)) {
+                    return items.get(i);
+                }
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    private static final class Stats {
+        private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        //격벽 거절 (SearchBulkheads)
+        private final LongAdder rejected = new LongAdder();
+
+        //expectedIntervalMicros 가 있으면 밀린 요청의 지연도 채워 넣는다. (HdrHistogram coordinated omission 보정)
+        private void record(long latencyMicros, int status, long expectedIntervalMicros) {
+            long value = Math.min(latencyMicros, MAX_LATENCY_MICROS);
+            if (expectedIntervalMicros > 0) {
+                histogram.recordValueWithExpectedInterval(value, expectedIntervalMicros);
+            } else {
+                histogram.recordValue(value);
+            }
+            requests.increment();
+            if (status == 503) {
+                rejected.increment();
+            } else if (status < 200 || status >= 300) {
+                errors.increment();
+            }
+        }
+    }
+}
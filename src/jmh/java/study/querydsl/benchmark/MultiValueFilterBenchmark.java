@@ -0,0 +1,97 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJdbcRepository;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+    usernames 목록 크기별 검색 비용. 목록 하나를 한번 조회하는 것과 회원 하나씩 조회(loop)하는 것을 비교한다.
+    - jpaIn     : JPQL in 절 (in_clause_parameter_padding, CHUNK_SIZE 초과시 in 절 분할)
+    - jdbcIn    : JDBC 패딩 in 절 / CHUNK_SIZE 초과시 배열 파라미터 table 조인
+    - jpaLoop   : 클라이언트가 지금 하는 방식 (username 하나씩)
+    ./gradlew jmh -PjmhArgs="MultiValueFilterBenchmark"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MultiValueFilterBenchmark {
+
+    private static final int MEMBER_COUNT = 100_000;
+
+    @Param({"10", "100", "1000", "5000"})
+    int listSize;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    MemberJdbcRepository memberJdbcRepository;
+    List<String> usernames;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        BenchmarkSupport.seed(context, 100, MEMBER_COUNT);
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberJdbcRepository = context.getBean(MemberJdbcRepository.class);
+
+        //시드 고정 : 측정마다 같은 목록
+        Random random = new Random(42);
+        usernames = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            usernames.add("member" + random.nextInt(MEMBER_COUNT));
+        }
+        condition = new MemberSearchCondition();
+        condition.setUsernames(usernames);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaIn() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public MemberTeamColumns jdbcIn() {
+        return memberJdbcRepository.searchColumns(condition);
+    }
+
+    @Benchmark
+    public int jpaLoop() {
+        int found = 0;
+        MemberSearchCondition single = new MemberSearchCondition();
+        for (String username : usernames) {
+            single.setUsername(username);
+            found += memberJpaRepository.search(single).size();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.LeanPageJsonSerializer;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoJsonSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    페이지 응답 직렬화 비교. (DB 조회 없이 직렬화만 측정)
+    default : PageImpl 기본(리플렉션) 직렬화 / lean : LeanPageJsonSerializer + MemberTeamDtoJsonSerializer
+    format  : json / smile / cbor
+
+    페이지 하나의 바이트 수는 setUp 에서 출력한다.
+    ./gradlew jmh -PjmhArgs="PageSerializationBenchmark -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    int pageSize;
+
+    @Param({"json", "smile", "cbor"})
+    String format;
+
+    Page<MemberTeamDto> page;
+    ObjectMapper defaultMapper;
+    ObjectMapper leanMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            long teamId = i % 100 + 1;
+            content.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        page = new PageImpl<>(content, PageRequest.of(3, pageSize), 100_000);
+
+        defaultMapper = new ObjectMapper(factory(format));
+        leanMapper = new ObjectMapper(factory(format));
+        leanMapper.registerModule(new SimpleModule()
+                .addSerializer(new LeanPageJsonSerializer())
+                .addSerializer(new MemberTeamDtoJsonSerializer()));
+
+        System.out.printf("%n%s page of %d : default %d bytes, lean %d bytes%n",
+                format, pageSize, write(defaultMapper), write(leanMapper));
+    }
+
+    @Benchmark
+    public long defaultPage() throws IOException {
+        return write(defaultMapper);
+    }
+
+    @Benchmark
+    public long leanPage() throws IOException {
+        return write(leanMapper);
+    }
+
+    private long write(ObjectMapper mapper) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        mapper.writeValue(out, page);
+        return out.count;
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    //출력은 버리고 바이트 수만 센다.
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
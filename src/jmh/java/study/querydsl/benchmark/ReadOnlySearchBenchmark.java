@@ -0,0 +1,79 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberTestRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    큰 엔티티 페이지 조회시 읽기/쓰기 트랜잭션과 읽기 전용 트랜잭션의 힙 사용량 비교.
+    ./gradlew jmh -PjmhArgs="ReadOnlySearchBenchmark -prof gc"
+    gc.alloc.rate.norm(B/op) 값을 비교한다. 읽기/쓰기 쪽은 엔티티마다 로딩 시점 스냅샷(Object[])이 추가로 생기고,
+    커밋 시점 flush 에서 전체 엔티티를 dirty checking 한다.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadOnlySearchBenchmark {
+
+    @Param({"1000", "10000"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    MemberTestRepository memberTestRepository;
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        BenchmarkSupport.seed(context, 10, 20_000);
+
+        memberTestRepository = context.getBean(MemberTestRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int readWriteTransaction() {
+        return readWrite.execute(status -> searchPage());
+    }
+
+    @Benchmark
+    public int readOnlyTransaction() {
+        return readOnly.execute(status -> searchPage());
+    }
+
+    private int searchPage() {
+        return memberTestRepository
+                .applyPagination(new MemberSearchCondition(), PageRequest.of(0, pageSize))
+                .getNumberOfElements();
+    }
+}
@@ -0,0 +1,228 @@
+package study.querydsl.benchmark;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    느린 클라이언트 동시 접속 부하. MVC(/v1/members) 와 R2DBC 스트리밍(/v1/members/stream) 을 비교한다.
+    JMH 로는 동시 접속 수를 재현할 수 없어서 main 으로 실행한다.
+
+    클라이언트마다 수신 버퍼를 작게 잡고 정해진 속도(bytes-per-second)로만 읽으므로
+    서버는 클라이언트가 읽는 속도로만 응답을 쓸 수 있다. 클라이언트는 스레드 하나(NIO)로 모두 처리한다.
+    서버가 같은 JVM 에 있으므로 스레드 수 / 힙 사용량은 서버 + 클라이언트 스레드 1개다.
+
+    결과 : 완료 / 실패 수, 전체 시간, 요청 지연(p50 / p99 / max), 최대 스레드 수, 최대 힙 사용량
+    ./gradlew slowClientLoadTest -PslowClientArgs="--clients=10000 --bytes-per-second=4096"
+    소켓이 2 x clients 개 필요하므로 파일 디스크립터 제한을 올려야 한다. (ulimit -n 65536)
+*/
+public final class SlowClientLoadTest {
+
+    //읽기 주기
+    private static final long TICK_MILLIS = 100;
+    //클라이언트 수신 버퍼 (작을수록 서버 쓰기가 빨리 막힌다)
+    private static final int RECEIVE_BUFFER = 4 * 1024;
+
+    private SlowClientLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "10000"));
+        int members = Integer.parseInt(options.getOrDefault("members", "20000"));
+        int bytesPerSecond = Integer.parseInt(options.getOrDefault("bytes-per-second", "4096"));
+        //기본 : age 0 인 회원 (members 의 1%)
+        String query = options.getOrDefault("query", "ageLoe=0");
+        String[] paths = options.getOrDefault("paths", "/v1/members,/v1/members/stream").split(",");
+
+        ConfigurableApplicationContext context = BenchmarkSupport.start(
+                "--spring.main.web-application-type=servlet",
+                "--server.port=0",
+                "--server.tomcat.max-connections=" + (clients + 1_000),
+                "--server.tomcat.accept-count=" + clients);
+        try {
+            BenchmarkSupport.seed(context, 100, members);
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+            System.out.printf("clients=%d, members=%d, bytes-per-second=%d, query=%s%n", clients, members, bytesPerSecond, query);
+            for (String path : paths) {
+                System.gc();
+                Result result = run(new InetSocketAddress("localhost", port), path + "?" + query, clients, bytesPerSecond);
+                System.out.println(path + " : " + result);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result run(InetSocketAddress address, String target, int clientCount, int bytesPerSecond) throws Exception {
+        byte[] request = ("GET " + target + " HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Accept: */*\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        int bytesPerTick = Math.max(1, (int) (bytesPerSecond * TICK_MILLIS / 1000));
+
+        Sampler sampler = new Sampler();
+        sampler.start();
+        long start = System.nanoTime();
+
+        SocketChannel[] channels = new SocketChannel[clientCount];
+        long[] startedAt = new long[clientCount];
+        long[] latencies = new long[clientCount];
+        byte[][] statusLines = new byte[clientCount][];
+        int completed = 0;
+        int failed = 0;
+        long received = 0;
+
+        //접속 + 요청 (접속하는 동안 먼저 접속한 클라이언트는 읽지 않는다)
+        for (int i = 0; i < clientCount; i++) {
+            try {
+                SocketChannel channel = SocketChannel.open();
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, RECEIVE_BUFFER);
+                channel.connect(address);
+                startedAt[i] = System.nanoTime();
+                channel.write(ByteBuffer.wrap(request));
+                channel.configureBlocking(false);
+                channels[i] = channel;
+            } catch (IOException e) {
+                failed++;
+            }
+        }
+
+        //주기마다 클라이언트별로 bytesPerTick 만큼만 읽는다.
+        ByteBuffer buffer = ByteBuffer.allocate(bytesPerTick);
+        int open = clientCount - failed;
+        while (open > 0) {
+            long tickStart = System.nanoTime();
+            for (int i = 0; i < clientCount; i++) {
+                SocketChannel channel = channels[i];
+                if (channel == null) {
+                    continue;
+                }
+                buffer.clear();
+                int read;
+                try {
+                    read = channel.read(buffer);
+                } catch (IOException e) {
+                    read = -2;
+                }
+                if (read > 0) {
+                    received += read;
+                    if (statusLines[i] == null) {
+                        statusLines[i] = Arrays.copyOf(buffer.array(), Math.min(read, 12));
+                    }
+                    continue;
+                }
+                if (read == 0) {
+                    continue;
+                }
+                //서버가 응답을 끝내고 연결을 닫았다. (Connection: close)
+                channel.close();
+                channels[i] = null;
+                open--;
+                if (read == -1 && statusLines[i] != null
+                        && new String(statusLines[i], StandardCharsets.US_ASCII).startsWith("HTTP/1.1 200")) {
+                    latencies[completed++] = System.nanoTime() - startedAt[i];
+                } else {
+                    failed++;
+                }
+            }
+            long sleep = TICK_MILLIS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - tickStart);
+            if (sleep > 0) {
+                Thread.sleep(sleep);
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        sampler.stop();
+        long[] sorted = Arrays.copyOf(latencies, completed);
+        Arrays.sort(sorted);
+        return new Result(completed, failed, received, elapsed, sorted, sampler.peakThreads.get(), sampler.peakHeapBytes.get());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    //JVM 스레드 수 / 힙 사용량 최대값을 주기적으로 기록한다.
+    private static final class Sampler {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicInteger peakThreads = new AtomicInteger();
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+
+        void start() {
+            scheduler.scheduleAtFixedRate(() -> {
+                peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            }, 0, 100, TimeUnit.MILLISECONDS);
+        }
+
+        void stop() throws InterruptedException {
+            scheduler.shutdown();
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class Result {
+        private final int completed;
+        private final int failed;
+        private final long receivedBytes;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+        private final int peakThreads;
+        private final long peakHeapBytes;
+
+        private Result(int completed, int failed, long receivedBytes, long elapsedNanos, long[] sortedLatencies,
+                       int peakThreads, long peakHeapBytes) {
+            this.completed = completed;
+            this.failed = failed;
+            this.receivedBytes = receivedBytes;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+            this.peakThreads = peakThreads;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        private long percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return TimeUnit.NANOSECONDS.toMillis(sortedLatencies[Math.max(0, index)]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("completed=%d, failed=%d, received=%dKB, elapsed=%ds, latency p50=%dms p99=%dms max=%dms, "
+                            + "peakThreads=%d, peakHeap=%dMB",
+                    completed, failed, receivedBytes / 1024, TimeUnit.NANOSECONDS.toSeconds(elapsedNanos),
+                    percentileMillis(50), percentileMillis(99), percentileMillis(100),
+                    peakThreads, peakHeapBytes / (1024 * 1024));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    search(/v1/members) / searchPageComplex(/v3/members) 의 JPA 구현과 querydsl-sql 구현 비교.
+    - jpa : JPQL -> HQL 파싱 / SQL 변환 -> Hibernate 결과 처리
+    - sql : querydsl-sql 로 SQL 을 바로 실행 (MemberSqlRepository)
+    ./gradlew jmh -PjmhArgs="SqlSearchBenchmark -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SqlSearchBenchmark {
+
+    @Param({"jpa", "sql"})
+    String backend;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+
+    //팀 하나 : 10만명 중 1000명
+    MemberSearchCondition selective;
+    //나이 범위 : 10만명 중 10000명
+    MemberSearchCondition wide;
+    Pageable pageable = PageRequest.of(1, 20);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start("--app.search.backend=" + backend);
+        BenchmarkSupport.seed(context, 100, 100_000);
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        selective = new MemberSearchCondition();
+        selective.setTeamName("team7");
+
+        wide = new MemberSearchCondition();
+        wide.setAgeGoe(40);
+        wide.setAgeLoe(49);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchSelective() {
+        return memberJpaRepository.search(selective);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchWide() {
+        return memberJpaRepository.search(wide);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(wide, pageable);
+    }
+}
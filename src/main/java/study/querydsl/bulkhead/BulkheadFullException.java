@@ -0,0 +1,20 @@
+package study.querydsl.bulkhead;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//분류의 대기열이 찼거나 커넥션 할당을 기다리다 시간이 지난 경우. 클라이언트는 잠시 후 다시 요청한다.
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends RuntimeException {
+
+    private final SearchCost cost;
+
+    public BulkheadFullException(SearchCost cost, String reason) {
+        super(cost.tag() + " searches are saturated: " + reason);
+        this.cost = cost;
+    }
+
+    public SearchCost getCost() {
+        return cost;
+    }
+}
@@ -0,0 +1,146 @@
+package study.querydsl.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import study.querydsl.config.BulkheadProperties;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+    검색을 비용 분류(SearchCost)별 격벽에서 실행한다.
+    분류마다 크기가 정해진 실행기(스레드 + 대기열)와 커넥션 할당(세마포어)을 따로 두므로
+    넓은 조회가 몰려도 Tomcat 스레드와 Hikari 커넥션을 다 쓰지 못하고, selective 조회와 id 조회는 기다리지 않는다.
+
+    - 요청 스레드는 CompletableFuture 를 돌려주고 바로 반환된다. (MVC 비동기 처리)
+    - 대기열이 차거나 커넥션 할당을 connection-wait 안에 얻지 못하면 BulkheadFullException (503)
+    - 메트릭 : member.search.bulkhead.queue / active / connections.available (gauge),
+              member.search.bulkhead.rejected (counter, reason=queue|connections), member.search.bulkhead.wait (timer)
+*/
+public class SearchBulkheads {
+
+    private final SearchCostClassifier classifier;
+    private final Map<SearchCost, Compartment> compartments = new EnumMap<>(SearchCost.class);
+
+    public SearchBulkheads(BulkheadProperties properties, SearchCostClassifier classifier, MeterRegistry meterRegistry) {
+        this.classifier = classifier;
+        compartments.put(SearchCost.SELECTIVE, new Compartment(SearchCost.SELECTIVE, properties.getSelective(), meterRegistry));
+        compartments.put(SearchCost.SCAN, new Compartment(SearchCost.SCAN, properties.getScan(), meterRegistry));
+    }
+
+    public <T> CompletableFuture<T> submit(MemberSearchCondition condition, Supplier<T> search) {
+        return submit(classifier.classify(condition), search);
+    }
+
+    public <T> CompletableFuture<T> submit(MemberSearchCondition condition, Pageable pageable, Supplier<T> search) {
+        return submit(classifier.classify(condition, pageable), search);
+    }
+
+    //여러 조건을 한번에 조회 (batch)
+    public <T> CompletableFuture<T> submit(Collection<MemberSearchCondition> conditions, Supplier<T> search) {
+        return submit(classifier.classify(conditions), search);
+    }
+
+    public <T> CompletableFuture<T> submit(SearchCost cost, Supplier<T> search) {
+        return compartments.get(cost).submit(search);
+    }
+
+    //스프링 빈 종료시 (destroy method 추론)
+    public void shutdown() {
+        for (Compartment compartment : compartments.values()) {
+            compartment.executor.shutdown();
+        }
+    }
+
+    private static final class Compartment {
+        private final SearchCost cost;
+        private final ThreadPoolExecutor executor;
+        private final Semaphore connections;
+        private final long connectionWaitNanos;
+        private final Counter queueRejections;
+        private final Counter connectionRejections;
+        private final Timer waitTimer;
+
+        private Compartment(SearchCost cost, BulkheadProperties.Compartment properties, MeterRegistry meterRegistry) {
+            this.cost = cost;
+            this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                    new CustomizableThreadFactory("search-" + cost.tag() + "-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.executor.allowCoreThreadTimeOut(true);
+            this.connections = new Semaphore(properties.getConnections());
+            this.connectionWaitNanos = properties.getConnectionWait().toNanos();
+
+            Gauge.builder("member.search.bulkhead.queue", executor, e -> e.getQueue().size())
+                    .description("Searches waiting for a bulkhead thread")
+                    .tag("class", cost.tag())
+                    .register(meterRegistry);
+            Gauge.builder("member.search.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .tag("class", cost.tag())
+                    .register(meterRegistry);
+            Gauge.builder("member.search.bulkhead.connections.available", connections, Semaphore::availablePermits)
+                    .tag("class", cost.tag())
+                    .register(meterRegistry);
+            this.queueRejections = Counter.builder("member.search.bulkhead.rejected")
+                    .tag("class", cost.tag())
+                    .tag("reason", "queue")
+                    .register(meterRegistry);
+            this.connectionRejections = Counter.builder("member.search.bulkhead.rejected")
+                    .tag("class", cost.tag())
+                    .tag("reason", "connections")
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("member.search.bulkhead.wait")
+                    .description("Time from submit until a connection permit is held")
+                    .tag("class", cost.tag())
+                    .register(meterRegistry);
+        }
+
+        private <T> CompletableFuture<T> submit(Supplier<T> search) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            long submitted = System.nanoTime();
+            try {
+                executor.execute(() -> run(search, future, submitted));
+            } catch (RejectedExecutionException e) {
+                queueRejections.increment();
+                future.completeExceptionally(new BulkheadFullException(cost, "queue is full"));
+            }
+            return future;
+        }
+
+        private <T> void run(Supplier<T> search, CompletableFuture<T> future, long submitted) {
+            boolean acquired;
+            try {
+                acquired = connections.tryAcquire(connectionWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                connectionRejections.increment();
+                future.completeExceptionally(new BulkheadFullException(cost, "no connection permit"));
+                return;
+            }
+            try {
+                future.complete(search.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                connections.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.bulkhead;
+
+//검색 비용 분류. 분류마다 실행 스레드 / 커넥션 할당을 따로 둔다. (SearchBulkheads)
+public enum SearchCost {
+
+    //인덱스로 몇 건만 읽는 조회 (username 조건, 결과가 작은 조건)
+    SELECTIVE("selective"),
+    //결과가 크거나 크기를 모르는 조회 (조건 없음, 넓은 age 범위, 큰 팀 ...)
+    SCAN("scan");
+
+    private final String tag;
+
+    SearchCost(String tag) {
+        this.tag = tag;
+    }
+
+    //메트릭 태그 값
+    public String tag() {
+        return tag;
+    }
+}
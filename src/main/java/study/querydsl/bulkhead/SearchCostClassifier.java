@@ -0,0 +1,82 @@
+package study.querydsl.bulkhead;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.index.MemberBitmapIndex;
+
+import java.util.Collection;
+import java.util.OptionalLong;
+
+/*
+    검색 조건이 읽을 행 수를 추정해서 SELECTIVE / SCAN 으로 나눈다.
+    - username / usernames 조건 : idx_member_username_age 로 값마다 몇 건만 읽는다.
+    - 나머지(team / age) : 비트맵 인덱스로 결과 건수를 구해서 max-selective-rows 와 비교한다.
+      비트맵으로 셀 수 없으면(꺼져 있음, 다시 만드는 중) 크기를 모르므로 SCAN.
+*/
+public class SearchCostClassifier {
+
+    //app.bitmap-count.enabled=false 이면 없다.
+    private final ObjectProvider<MemberBitmapIndex> bitmapIndex;
+    private final long maxSelectiveRows;
+
+    public SearchCostClassifier(ObjectProvider<MemberBitmapIndex> bitmapIndex, long maxSelectiveRows) {
+        this.bitmapIndex = bitmapIndex;
+        this.maxSelectiveRows = maxSelectiveRows;
+    }
+
+    //목록 조회 : 결과 전체를 읽는다.
+    public SearchCost classify(MemberSearchCondition condition) {
+        return classify(condition, Pageable.unpaged());
+    }
+
+    /*
+        페이지 조회 : 내용은 offset + size 행까지만 읽고, total 은 비트맵으로 셀 수 있으면 count 쿼리를 하지 않는다.
+        비트맵으로 셀 수 없으면 count 쿼리가 조건에 맞는 행을 모두 읽으므로 목록 조회와 같다.
+    */
+    public SearchCost classify(MemberSearchCondition condition, Pageable pageable) {
+        if (StringUtils.hasText(condition.getUsername())) {
+            return SearchCost.SELECTIVE;
+        }
+        if (!CollectionUtils.isEmpty(condition.getUsernames()) && condition.getUsernames().size() <= maxSelectiveRows) {
+            return SearchCost.SELECTIVE;
+        }
+        OptionalLong rows = estimatedRows(condition);
+        if (!rows.isPresent()) {
+            return SearchCost.SCAN;
+        }
+        long read = pageable.isPaged()
+                ? Math.min(rows.getAsLong(), pageable.getOffset() + pageable.getPageSize())
+                : rows.getAsLong();
+        return read <= maxSelectiveRows ? SearchCost.SELECTIVE : SearchCost.SCAN;
+    }
+
+    /*
+        여러 조건을 한번에 조회(batch) : 조건마다 결과 전체를 읽으므로 모든 조건이 SELECTIVE 이고,
+        읽을 행의 합도 max-selective-rows 이하일때만 SELECTIVE. username 조건은 값마다 한 건으로 본다.
+    */
+    public SearchCost classify(Collection<MemberSearchCondition> conditions) {
+        long rows = 0;
+        for (MemberSearchCondition condition : conditions) {
+            if (classify(condition) == SearchCost.SCAN) {
+                return SearchCost.SCAN;
+            }
+            if (StringUtils.hasText(condition.getUsername())) {
+                rows += 1;
+            } else if (!CollectionUtils.isEmpty(condition.getUsernames())) {
+                rows += condition.getUsernames().size();
+            } else {
+                //SELECTIVE 로 분류됐으므로 비트맵으로 센 값이 있다.
+                rows += estimatedRows(condition).orElse(maxSelectiveRows);
+            }
+        }
+        return rows <= maxSelectiveRows ? SearchCost.SELECTIVE : SearchCost.SCAN;
+    }
+
+    private OptionalLong estimatedRows(MemberSearchCondition condition) {
+        MemberBitmapIndex index = bitmapIndex.getIfAvailable();
+        return index != null ? index.count(condition) : OptionalLong.empty();
+    }
+}
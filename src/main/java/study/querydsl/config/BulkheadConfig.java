@@ -0,0 +1,28 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.bulkhead.SearchBulkheads;
+import study.querydsl.bulkhead.SearchCostClassifier;
+import study.querydsl.index.MemberBitmapIndex;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.bulkhead", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+    @Bean
+    public SearchCostClassifier searchCostClassifier(ObjectProvider<MemberBitmapIndex> bitmapIndex, BulkheadProperties properties) {
+        return new SearchCostClassifier(bitmapIndex, properties.getMaxSelectiveRows());
+    }
+
+    @Bean
+    public SearchBulkheads searchBulkheads(BulkheadProperties properties, SearchCostClassifier searchCostClassifier,
+                                           MeterRegistry meterRegistry) {
+        return new SearchBulkheads(properties, searchCostClassifier, meterRegistry);
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//app.bulkhead : 검색 비용 분류별 격벽 설정 (SearchBulkheads)
+@Data
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+
+    private boolean enabled;
+    //추정 조회 행 수가 이 이하이면 selective
+    private long maxSelectiveRows = 1_000;
+    private Compartment selective = new Compartment(16, 200, 6, Duration.ofMillis(100));
+    private Compartment scan = new Compartment(2, 20, 2, Duration.ofSeconds(1));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Compartment {
+        //동시에 실행하는 검색 수
+        private int threads;
+        //실행을 기다릴 수 있는 검색 수. 넘으면 거절(503)
+        private int queueCapacity;
+        //동시에 쓸 수 있는 커넥션 수. 분류별 합이 커넥션 풀 크기보다 작아야 id 조회 / 쓰기 몫이 남는다.
+        private int connections;
+        //커넥션 할당을 기다리는 최대 시간
+        private Duration connectionWait;
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.entity.Team;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/*
+    2차 캐시 설정.
+    Team 은 건수가 적고 거의 변경되지 않는 데이터이므로 프로세스 내부(ehcache heap) 캐시에 보관한다.
+    최대 건수를 넘으면 LRU 로 제거되고, ttl 이 지나면 만료된다.
+*/
+@Configuration
+public class HibernateCacheConfig {
+
+    //엔티티 캐시 리전 이름은 엔티티 클래스 이름을 사용한다.
+    public static final String TEAM_REGION = Team.class.getName();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${app.team-cache.max-entries:1000}") long maxEntries,
+                                              @Value("${app.team-cache.time-to-live:PT10M}") Duration timeToLive) {
+        EhcacheCachingProvider cachingProvider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache(TEAM_REGION, CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive)))
+                .build();
+
+        //테스트처럼 컨텍스트가 여러개 뜨는 경우에도 캐시 매니저를 공유하지 않도록 URI 를 구분한다.
+        URI uri = URI.create("urn:querydsl:hibernate-cache:" + UUID.randomUUID());
+        CacheManager cacheManager = cachingProvider.getCacheManager(uri, configuration);
+        cacheManager.enableStatistics(TEAM_REGION, true);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+    }
+}
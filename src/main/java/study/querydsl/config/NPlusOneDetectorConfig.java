@@ -0,0 +1,47 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import study.querydsl.jdbc.NPlusOneDetector;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/*
+    실행 중 N+1 감지 로그.
+    트랜잭션 밖에서 실행된 문장(open-in-view 지연 로딩)은 요청이 끝날때 판단한다.
+*/
+@Configuration
+@ConditionalOnProperty(prefix = "app.n-plus-one", name = "enabled", havingValue = "true")
+public class NPlusOneDetectorConfig {
+
+    @Bean
+    public NPlusOneDetector nPlusOneDetector(@Value("${app.n-plus-one.threshold:10}") int threshold) {
+        return new NPlusOneDetector(threshold);
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> nPlusOneDetectorFilter(NPlusOneDetector nPlusOneDetector) {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                nPlusOneDetector.startRequest();
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    nPlusOneDetector.finishRequest();
+                }
+            }
+        });
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/*
+    app.search.backend=sql 이면 검색을 JPQL 대신 querydsl-sql 로 바로 실행한다. (MemberSqlRepository)
+    커넥션은 JPA 와 같은 DataSource 에서, 현재 트랜잭션에 묶인 커넥션을 그대로 쓴다.
+*/
+@Configuration
+@ConditionalOnProperty(prefix = "app.search", name = "backend", havingValue = "sql")
+public class QuerydslSqlConfig {
+
+    @Bean
+    public com.querydsl.sql.Configuration querydslSqlConfiguration() {
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(H2Templates.builder().build());
+        //SQLException 을 스프링 DataAccessException 으로 바꾼다.
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        return configuration;
+    }
+
+    //SpringConnectionProvider : DataSourceUtils 로 트랜잭션 커넥션을 얻는다. (JpaTransactionManager 가 노출한 JDBC 커넥션)
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(DataSource dataSource, com.querydsl.sql.Configuration querydslSqlConfiguration) {
+        return new SQLQueryFactory(querydslSqlConfiguration, new SpringConnectionProvider(dataSource));
+    }
+}
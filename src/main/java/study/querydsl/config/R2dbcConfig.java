@@ -0,0 +1,20 @@
+package study.querydsl.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/*
+    스트리밍 검색(MemberReactiveRepository)용 R2DBC.
+    ConnectionFactory(풀)는 spring.r2dbc 설정으로 자동 설정되고, spring-data-r2dbc 는 쓰지 않으므로 DatabaseClient 만 만든다.
+    R2DBC 트랜잭션 매니저는 자동 설정에서 제외한다. (있으면 JPA transactionManager 가 만들어지지 않는다)
+*/
+@Configuration
+public class R2dbcConfig {
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+}
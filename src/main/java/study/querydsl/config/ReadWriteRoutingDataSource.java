@@ -0,0 +1,127 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica 로, 나머지는 primary 로 보낸다.
+    트랜잭션을 시작할때 커넥션을 받으면 아직 readOnly 여부가 정해지지 않았으므로
+    반드시 LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 을 실행할때 커넥션을 받도록 한다.
+
+    read-your-writes : 쓰기 트랜잭션이 커밋된 뒤 window 동안은 읽기 전용 트랜잭션도 primary 로 보낸다.
+    (replica 복제 지연 동안 방금 쓴 데이터가 안 보이는 것을 막는다. 프로세스 전체 기준이므로 쓰기가 계속되면 primary 로 읽는다)
+*/
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    public enum Balancing {
+        ROUND_ROBIN,
+        //사용 중인 커넥션이 가장 적은 replica
+        LEAST_CONNECTIONS
+    }
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final Balancing balancing;
+    private final long readYourWritesWindowNanos;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    //마지막 쓰기 트랜잭션 커밋 시각 (System.nanoTime), 0 이면 아직 없음
+    private volatile long lastWriteCommitNanos;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                      Balancing balancing, Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.balancing = balancing;
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(replicaKey(i), replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    public static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly) {
+            recordWriteOnCommit();
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || withinReadYourWritesWindow()) {
+            return PRIMARY;
+        }
+        return replicaKey(balancing == Balancing.LEAST_CONNECTIONS ? leastConnections() : roundRobin());
+    }
+
+    private void recordWriteOnCommit() {
+        if (readYourWritesWindowNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lastWriteCommitNanos = System.nanoTime();
+                }
+            });
+        }
+    }
+
+    private boolean withinReadYourWritesWindow() {
+        long lastWrite = lastWriteCommitNanos;
+        return lastWrite != 0 && System.nanoTime() - lastWrite < readYourWritesWindowNanos;
+    }
+
+    private int roundRobin() {
+        return Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+    }
+
+    //같으면 앞의 replica. 풀이 아직 시작되지 않았으면 0
+    private int leastConnections() {
+        int best = 0;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+            int active = pool != null ? pool.getActiveConnections() : 0;
+            if (active < bestActive) {
+                best = i;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void close() {
+        for (HikariDataSource replica : replicas) {
+            replica.close();
+        }
+        if (primary instanceof Closeable) {
+            try {
+                ((Closeable) primary).close();
+            } catch (IOException e) {
+                logger.warn("Failed to close primary datasource", e);
+            }
+        }
+    }
+}
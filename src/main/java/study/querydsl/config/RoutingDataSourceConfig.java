@@ -0,0 +1,89 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    app.datasource.routing.enabled=true 이면 spring.datasource 를 primary 로,
+    app.datasource.routing.replicas 를 replica 로 하는 라우팅 DataSource 를 만든다. (DataSource 자동 설정 대신)
+
+    primary / replica 풀은 빈으로 등록하지 않는다. (p6spy 등 DataSource 빈 후처리가 바깥 DataSource 에만 한번 적용되도록)
+
+    Hibernate 세션은 기본(DELAYED_ACQUISITION_AND_HOLD)으로 처음 받은 커넥션을 세션이 닫힐때까지 잡고 있다.
+    open-in-view 로 요청 동안 세션이 이어지면 첫 트랜잭션의 커넥션(replica 일 수 있음)을 쓰기 트랜잭션도 그대로 쓰므로,
+    open-in-view 를 끄거나 트랜잭션마다 커넥션을 반환(DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION)하지 않으면 시작하지 않는다.
+*/
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig implements DisposableBean {
+
+    static final String OPEN_IN_VIEW = "spring.jpa.open-in-view";
+    static final String CONNECTION_HANDLING = "spring.jpa.properties." + AvailableSettings.CONNECTION_HANDLING;
+
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    public RoutingDataSourceConfig(Environment environment) {
+        checkConnectionHandling(environment.getProperty(OPEN_IN_VIEW, Boolean.class, true),
+                environment.getProperty(CONNECTION_HANDLING));
+    }
+
+    static void checkConnectionHandling(boolean openInView, String connectionHandling) {
+        boolean releasedAfterTransaction = PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION.name()
+                .equalsIgnoreCase(connectionHandling);
+        if (openInView && !releasedAfterTransaction) {
+            throw new IllegalStateException("app.datasource.routing.enabled=true requires " + OPEN_IN_VIEW + "=false or "
+                    + CONNECTION_HANDLING + "=" + PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION
+                    + ", otherwise the first connection of a request is reused by every transaction in it");
+        }
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, RoutingDataSourceProperties routingProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (RoutingDataSourceProperties.Replica replicaProperties : routingProperties.getReplicas()) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(ReadWriteRoutingDataSource.replicaKey(replicas.size()));
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setJdbcUrl(replicaProperties.getUrl());
+            replica.setUsername(replicaProperties.getUsername() != null
+                    ? replicaProperties.getUsername() : dataSourceProperties.determineUsername());
+            replica.setPassword(replicaProperties.getPassword() != null
+                    ? replicaProperties.getPassword() : dataSourceProperties.determinePassword());
+            replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replicas,
+                routingProperties.getBalancing(), routingProperties.getReadYourWritesWindow());
+        routingDataSource.afterPropertiesSet();
+        //트랜잭션 시작 시점이 아니라 첫 SQL 실행 시점에 커넥션을 받아야 readOnly 로 라우팅할 수 있다.
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Override
+    public void destroy() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//app.datasource.routing : 읽기 전용 트랜잭션을 replica 로 보내는 설정 (ReadWriteRoutingDataSource)
+@Data
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+    private ReadWriteRoutingDataSource.Balancing balancing = ReadWriteRoutingDataSource.Balancing.ROUND_ROBIN;
+    //쓰기 커밋 후 읽기도 primary 로 보내는 시간 (replica 복제 지연보다 길게)
+    private Duration readYourWritesWindow = Duration.ofSeconds(1);
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String url;
+        //비어 있으면 spring.datasource 의 값
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//메모리 집계의 주기적인 reconcile 등 @Scheduled 작업 사용
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,15 @@
+package study.querydsl.config;
+
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class WindowFunctionConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer windowFunctionCustomizer() {
+        return properties -> properties.put(JpaSettings.METADATA_BUILDER_CONTRIBUTOR, new WindowFunctionContributor());
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/*
+    윈도우 함수를 JPQL 함수로 등록한다.
+    JPQL(HQL) 문법에는 over 절이 없으므로 over 절까지 포함한 SQL 템플릿을 함수 하나로 등록한다.
+    Querydsl 에서는 WindowFunctions 로 사용한다.
+
+    JPQL 은 where 절에 윈도우 함수를 쓸 수 없고(SQL 도 마찬가지), from 절 서브쿼리도 없으므로 select 절에서만 사용한다.
+*/
+public class WindowFunctionContributor implements MetadataBuilderContributor {
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        //집계 윈도우 : 전체 / 파티션
+        //H2 는 정수 컬럼의 avg 를 정수로 돌려주므로(소수점 버림) double 로 바꿔서 계산한다.
+        metadataBuilder.applySqlFunction("avg_over",
+                new SQLFunctionTemplate(StandardBasicTypes.DOUBLE, "avg(cast(?1 as double precision)) over ()"));
+        metadataBuilder.applySqlFunction("avg_over_partition",
+                new SQLFunctionTemplate(StandardBasicTypes.DOUBLE, "avg(cast(?1 as double precision)) over (partition by ?2)"));
+        //타입이 null 이면 첫번째 인자 타입을 따른다.
+        metadataBuilder.applySqlFunction("max_over_partition",
+                new SQLFunctionTemplate(null, "max(?1) over (partition by ?2)"));
+        metadataBuilder.applySqlFunction("min_over_partition",
+                new SQLFunctionTemplate(null, "min(?1) over (partition by ?2)"));
+        metadataBuilder.applySqlFunction("sum_over_partition",
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "sum(?1) over (partition by ?2)"));
+        metadataBuilder.applySqlFunction("count_over_partition",
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over (partition by ?1)"));
+
+        //순위 윈도우
+        metadataBuilder.applySqlFunction("rank_over",
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "rank() over (order by ?1)"));
+        metadataBuilder.applySqlFunction("rank_over_desc",
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "rank() over (order by ?1 desc)"));
+        metadataBuilder.applySqlFunction("rank_over_partition",
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "rank() over (partition by ?1 order by ?2)"));
+        metadataBuilder.applySqlFunction("rank_over_partition_desc",
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "rank() over (partition by ?1 order by ?2 desc)"));
+        metadataBuilder.applySqlFunction("row_number_over_partition",
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "row_number() over (partition by ?1 order by ?2)"));
+        metadataBuilder.applySqlFunction("row_number_over_partition_desc",
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "row_number() over (partition by ?1 order by ?2 desc)"));
+    }
+}
@@ -0,0 +1,92 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.ColumnarIndexStats;
+import study.querydsl.dto.IndexConsistencyReport;
+import study.querydsl.dto.IndexRecommendation;
+import study.querydsl.index.MemberBitmapIndex;
+import study.querydsl.index.MemberColumnarIndex;
+import study.querydsl.index.MemberNearCache;
+import study.querydsl.repository.support.IndexAdvisor;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final IndexAdvisor indexAdvisor;
+    private final ObjectProvider<MemberColumnarIndex> columnarIndex;
+    private final ObjectProvider<MemberBitmapIndex> bitmapIndex;
+    private final ObjectProvider<MemberNearCache> nearCache;
+
+    @GetMapping("/admin/index-advice")
+    public List<IndexRecommendation> indexAdvice(){
+        return indexAdvisor.recommend();
+    }
+
+    @DeleteMapping("/admin/index-advice")
+    public void resetIndexAdvice(){
+        indexAdvisor.reset();
+    }
+
+    @GetMapping("/admin/columnar-index")
+    public ColumnarIndexStats columnarIndexStats(){
+        return columnarIndex().stats();
+    }
+
+    @GetMapping("/admin/columnar-index/consistency")
+    public IndexConsistencyReport columnarIndexConsistency(){
+        return columnarIndex().checkConsistency();
+    }
+
+    @PostMapping("/admin/columnar-index/rebuild")
+    public ColumnarIndexStats rebuildColumnarIndex(){
+        MemberColumnarIndex index = columnarIndex();
+        index.rebuild();
+        return index.stats();
+    }
+
+    @GetMapping("/admin/bitmap-index/consistency")
+    public IndexConsistencyReport bitmapIndexConsistency(){
+        return bitmapIndex().checkConsistency();
+    }
+
+    @PostMapping("/admin/bitmap-index/rebuild")
+    public void rebuildBitmapIndex(){
+        bitmapIndex().rebuild();
+    }
+
+    //벌크 연산 이후처럼 이벤트 없이 바뀐 회원이 있을때
+    @DeleteMapping("/admin/near-cache")
+    public void invalidateNearCache(){
+        MemberNearCache cache = nearCache.getIfAvailable();
+        if (cache == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "near cache is disabled");
+        }
+        cache.invalidateAll();
+    }
+
+    private MemberColumnarIndex columnarIndex(){
+        MemberColumnarIndex index = columnarIndex.getIfAvailable();
+        if (index == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "columnar index is disabled");
+        }
+        return index;
+    }
+
+    private MemberBitmapIndex bitmapIndex(){
+        MemberBitmapIndex index = bitmapIndex.getIfAvailable();
+        if (index == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "bitmap index is disabled");
+        }
+        return index;
+    }
+}
@@ -1,16 +1,45 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import study.querydsl.bulkhead.SearchBulkheads;
+import study.querydsl.dto.MemberAgeRankDto;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+import study.querydsl.dto.MemberTeamColumnsJsonWriter;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamField;
+import study.querydsl.repository.MemberAnalyticsRepository;
+import study.querydsl.repository.MemberJdbcRepository;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberReactiveRepository;
 import study.querydsl.repository.MemberRepository;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,19 +47,144 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberJdbcRepository memberJdbcRepository;
+    private final MemberAnalyticsRepository memberAnalyticsRepository;
+    private final MemberReactiveRepository memberReactiveRepository;
+    private final ObjectMapper objectMapper;
+    //app.bulkhead.enabled=false 이면 없다.
+    private final ObjectProvider<SearchBulkheads> searchBulkheads;
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition){
+        return bulkhead(condition, Pageable.unpaged(), () -> memberJpaRepository.search(condition));
+    }
+
+    /*
+        v1 과 같은 결과를 R2DBC 로 조회해서 NDJSON 으로 흘려 보낸다.
+        요청 스레드는 바로 반환되고, 소켓에 쓸 수 있을 때만 다음 행을 읽는다.(NdjsonStreamSubscriber)
+    */
+    @GetMapping(value = "/v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamMemberV1(MemberSearchCondition condition, HttpServletRequest request) throws IOException {
+        //조회 준비(조건 검사 등)에서 실패하면 비동기로 넘어가기 전에 일반 오류 응답으로 끝낸다.
+        Flux<MemberTeamDto> members = memberReactiveRepository.search(condition);
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(TimeUnit.MINUTES.toMillis(10));
+        asyncContext.getResponse().setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        asyncContext.getResponse().setCharacterEncoding("UTF-8");
+        new NdjsonStreamSubscriber<MemberTeamDto>(asyncContext, objectMapper.writerFor(MemberTeamDto.class))
+                .start(members);
+    }
+
+    //회원 한건 (자주 조회되는 회원은 near cache 에서)
+    @GetMapping("/v1/members/{id:\\d+}")
+    public MemberTeamDto findMemberV1(@PathVariable Long id){
+        return memberJpaRepository.findDtoById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "member not found: " + id));
+    }
+
+    //v1 과 같은 결과를 DTO 없이 컬럼 배열에서 바로 JSON 으로 쓴다.(대량 조회용)
+    @GetMapping(value = "/v1/members/columns", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody searchMemberV1Columns(MemberSearchCondition condition){
+        MemberTeamColumns columns = memberJdbcRepository.searchColumns(condition);
+        return outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            MemberTeamColumnsJsonWriter.write(columns, generator);
+            generator.flush();
+        };
+    }
+
+    /*
+        여러 검색 조건을 한번에 조회한다. (화면의 위젯마다 /v1/members 를 따로 호출하지 않도록)
+        요청 : [{"teamName":"teamA"}, {"ageGoe":30}], 응답 : 조건 순서대로 v1 과 같은 목록의 목록
+        조건 하나의 결과가 MemberJdbcRepository.MAX_BATCH_ROWS 를 넘으면 400.
+    */
+    @PostMapping("/v1/members/batch")
+    public CompletableFuture<List<List<MemberTeamDto>>> searchMemberV1Batch(@RequestBody List<MemberSearchCondition> conditions){
+        if (conditions.size() > MemberJdbcRepository.MAX_BATCH_CONDITIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "at most " + MemberJdbcRepository.MAX_BATCH_CONDITIONS + " conditions are allowed");
+        }
+        Supplier<List<List<MemberTeamDto>>> search = () -> {
+            try {
+                return memberJdbcRepository.searchBatch(conditions);
+            } catch (IllegalArgumentException e) {
+                //조건 하나의 결과가 MemberJdbcRepository.MAX_BATCH_ROWS 를 넘음
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        };
+        SearchBulkheads bulkheads = searchBulkheads.getIfAvailable();
+        if (bulkheads == null) {
+            return CompletableFuture.completedFuture(search.get());
+        }
+        return bulkheads.submit(conditions, search);
+    }
+
+    //소속 팀 평균 나이보다 나이가 많은 회원 (팀 평균 / 팀 안 순위 포함)
+    @GetMapping("/v1/members/above-team-average")
+    public CompletableFuture<List<MemberAgeRankDto>> searchMemberAboveTeamAverage(MemberSearchCondition condition){
+        return bulkhead(condition, Pageable.unpaged(), () -> memberAnalyticsRepository.aboveTeamAverageAge(condition));
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageSimple(condition,pageable);
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
+        return bulkhead(condition, pageable, () -> memberRepository.searchPageSimple(condition,pageable));
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageComplex(condition,pageable);
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
+        return bulkhead(condition, pageable, () -> memberRepository.searchPageComplex(condition,pageable));
+    }
+
+    /*
+        fields 파라미터가 있으면 요청한 필드만 조회해서 돌려준다. (예 : fields=username,age)
+        v1 ~ v3 와 조건은 같고, v2 / v3 는 모두 count 쿼리를 분리하는 방식(v3)으로 처리한다.
+    */
+    @GetMapping(value = "/v1/members", params = "fields")
+    public CompletableFuture<List<Map<String, Object>>> searchMemberV1Fields(MemberSearchCondition condition, @RequestParam String fields){
+        Set<MemberTeamField> parsed = parseFields(fields);
+        return bulkhead(condition, Pageable.unpaged(), () -> memberRepository.searchFields(condition, parsed));
+    }
+
+    @GetMapping(value = {"/v2/members", "/v3/members"}, params = "fields")
+    public CompletableFuture<Page<Map<String, Object>>> searchMemberPageFields(MemberSearchCondition condition, @RequestParam String fields, Pageable pageable){
+        Set<MemberTeamField> parsed = parseFields(fields);
+        return bulkhead(condition, pageable, () -> {
+            try {
+                return memberRepository.searchPageFields(condition, parsed, pageable);
+            } catch (IllegalArgumentException e) {
+                //지원하지 않는 ?sort= 프로퍼티
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        });
+    }
+
+    /*
+        비용 분류별 격벽(SearchBulkheads)에서 검색한다. 요청 스레드는 바로 반환된다.
+        격벽이 꺼져 있으면(app.bulkhead.enabled=false) 요청 스레드에서 바로 검색한다.
+    */
+    private <T> CompletableFuture<T> bulkhead(MemberSearchCondition condition, Pageable pageable, Supplier<T> search){
+        SearchBulkheads bulkheads = searchBulkheads.getIfAvailable();
+        if (bulkheads == null) {
+            return CompletableFuture.completedFuture(search.get());
+        }
+        return bulkheads.submit(condition, pageable, search);
+    }
+
+    private static Set<MemberTeamField> parseFields(String fields){
+        Set<MemberTeamField> parsed = EnumSet.noneOf(MemberTeamField.class);
+        for (String name : fields.split(",")) {
+            if (name.trim().isEmpty()) {
+                continue;
+            }
+            MemberTeamField field = MemberTeamField.fromJsonName(name.trim());
+            if (field == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown field: " + name.trim());
+            }
+            parsed.add(field);
+        }
+        if (parsed.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fields must not be empty");
+        }
+        return parsed;
     }
 }
@@ -0,0 +1,197 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Publisher 를 서블릿 논블로킹 출력(WriteListener)으로 NDJSON(한 줄에 JSON 하나)으로 쓴다.
+    소켓에 더 쓸 수 있을때(isReady)만 다음 행을 요청하므로
+    - 느린 클라이언트를 기다리는 동안 스레드를 잡지 않고 (쓸 수 있게 되면 컨테이너가 onWritePossible 을 부른다)
+    - 조회도 클라이언트가 읽는 만큼만 진행되어 메모리에는 요청당 최대 BATCH 행만 있다.
+
+    onNext 는 publisher 스레드, onWritePossible 은 컨테이너 스레드에서 불리므로
+    출력 스트림은 drain 안에서 한번에 한 스레드만 다룬다. (wip)
+*/
+@Slf4j
+final class NdjsonStreamSubscriber<T> implements Subscriber<T> {
+
+    //한번에 요청하는 행 수
+    private static final int BATCH = 32;
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream outputStream;
+    private final ObjectWriter objectWriter;
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    //drain 중인 스레드가 있으면 다른 스레드는 카운트만 올리고, drain 중인 스레드가 한번 더 돈다.
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile Subscription subscription;
+    //WriteListener 등록 전에는 isReady 를 부를 수 없다.
+    private volatile boolean listening;
+    private volatile boolean upstreamDone;
+    //클라이언트 연결 끊김 / 타임아웃
+    private volatile boolean cancelled;
+    private boolean closed;
+    //요청했지만 아직 쓰지 않은 행 수 (drain 안에서만 바꾼다)
+    private int outstanding;
+
+    NdjsonStreamSubscriber(AsyncContext asyncContext, ObjectWriter objectWriter) throws IOException {
+        this.asyncContext = asyncContext;
+        this.outputStream = asyncContext.getResponse().getOutputStream();
+        this.objectWriter = objectWriter;
+    }
+
+    //구독하고 출력을 시작한다. 첫 요청(request)은 출력할 수 있을때 drain 에서 한다.
+    void start(Publisher<T> publisher) {
+        ContainerCallbacks callbacks = new ContainerCallbacks();
+        asyncContext.addListener(callbacks);
+        publisher.subscribe(this);
+        outputStream.setWriteListener(callbacks);
+        listening = true;
+        //setWriteListener 안에서 onWritePossible 이 먼저 불렸을 수 있다.
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(T item) {
+        queue.offer(item);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        //이미 일부를 보냈을 수 있으므로 상태 코드는 바꾸지 않는다. 클라이언트는 잘린 스트림을 받는다.
+        log.warn("Member stream failed", throwable);
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (!closed) {
+                try {
+                    if (cancelled) {
+                        close();
+                    } else {
+                        writeReady();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Member stream closed: {}", e.toString());
+                    close();
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    //소켓에 쓸 수 있는 만큼 쓴다. isReady 가 false 를 돌려주면 컨테이너가 나중에 onWritePossible 을 부른다.
+    private void writeReady() throws IOException {
+        while (listening && subscription != null && outputStream.isReady()) {
+            //완료 여부를 먼저 읽어야 완료 전에 들어온 마지막 행을 놓치지 않는다.
+            boolean done = upstreamDone;
+            T item = queue.poll();
+            if (item == null) {
+                if (done) {
+                    closed = true;
+                    asyncContext.complete();
+                } else if (outstanding == 0) {
+                    //request 안에서 바로 onNext 가 불리면 wip 로 한번 더 돈다.
+                    outstanding = BATCH;
+                    subscription.request(BATCH);
+                }
+                return;
+            }
+            outstanding--;
+            outputStream.write(line(item));
+        }
+    }
+
+    private byte[] line(T item) throws IOException {
+        byte[] json = objectWriter.writeValueAsBytes(item);
+        byte[] line = Arrays.copyOf(json, json.length + 1);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    private void close() {
+        closed = true;
+        queue.clear();
+        Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            //컨테이너가 이미 끝낸 요청
+        }
+    }
+
+    private void cancel() {
+        cancelled = true;
+        drain();
+    }
+
+    //WriteListener.onError 와 Subscriber.onError 가 같은 시그니처라서 따로 둔다.
+    private final class ContainerCallbacks implements WriteListener, AsyncListener {
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        //클라이언트 연결이 끊긴 경우
+        @Override
+        public void onError(Throwable throwable) {
+            cancel();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            cancel();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            cancel();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.bulkhead.SearchBulkheads;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TeamStatisticsReport;
+import study.querydsl.repository.MemberAnalyticsRepository;
+import study.querydsl.repository.TeamStatisticsRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatisticsRepository teamStatisticsRepository;
+    private final MemberAnalyticsRepository memberAnalyticsRepository;
+    //app.bulkhead.enabled=false 이면 없다.
+    private final ObjectProvider<SearchBulkheads> searchBulkheads;
+
+    //팀별 회원 수 / 나이 통계 + 전체 합계 (검색 조건 적용)
+    @GetMapping("/v1/teams/statistics")
+    public CompletableFuture<TeamStatisticsReport> teamStatistics(MemberSearchCondition condition){
+        return bulkhead(condition, () -> teamStatisticsRepository.statistics(condition));
+    }
+
+    //팀별 상위 n 명 (예 : n=3&sort=age,desc -> 팀별 나이 많은 3명, 정렬이 없으면 나이 많은 순)
+    @GetMapping("/v1/teams/top-members")
+    public CompletableFuture<List<MemberTeamDto>> topMembers(MemberSearchCondition condition, @RequestParam(defaultValue = "3") int n, Sort sort){
+        return bulkhead(condition, () -> {
+            try {
+                return memberAnalyticsRepository.topNPerTeam(condition, n, sort);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        });
+    }
+
+    /*
+        조건에 맞는 회원 전체를 읽는 조회이므로 목록 조회와 같이 분류한다.(MemberController.bulkhead)
+        격벽이 꺼져 있으면(app.bulkhead.enabled=false) 요청 스레드에서 바로 조회한다.
+    */
+    private <T> CompletableFuture<T> bulkhead(MemberSearchCondition condition, Supplier<T> search){
+        SearchBulkheads bulkheads = searchBulkheads.getIfAvailable();
+        if (bulkheads == null) {
+            return CompletableFuture.completedFuture(search.get());
+        }
+        return bulkheads.submit(condition, search);
+    }
+}
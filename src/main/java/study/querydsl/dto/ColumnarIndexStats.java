@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class ColumnarIndexStats {
+    private boolean ready;
+    private int rows;
+    private int capacity;
+    private int teams;
+    private int distinctUsernames;
+    //배열, id -> slot 맵, username 풀을 합친 대략적인 힙 사용량
+    private long estimatedBytes;
+}
@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class IndexConsistencyReport {
+    private long databaseRows;
+    private long indexRows;
+    //DB 에는 있고 인덱스에는 없는 행
+    private long missing;
+    //인덱스에는 있고 DB 에는 없는 행
+    private long extra;
+    //양쪽에 있지만 값이 다른 행
+    private long mismatched;
+    private List<Long> sampleIds = new ArrayList<>();
+
+    public boolean isConsistent() {
+        return missing == 0 && extra == 0 && mismatched == 0;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class IndexRecommendation {
+    private String shape;
+    private long frequency;
+    private List<String> columns;
+    //조건 전체의 예상 선택도(조건을 만족하는 행의 비율, 컬럼간 독립 가정)
+    private double estimatedSelectivity;
+    private long estimatedRows;
+    //이미 선언된 인덱스가 컬럼 순서대로 포함하고 있는 경우
+    private String coveredBy;
+    private String ddl;
+
+    public IndexRecommendation(String shape, long frequency, List<String> columns,
+                               double estimatedSelectivity, long estimatedRows, String coveredBy, String ddl) {
+        this.shape = shape;
+        this.frequency = frequency;
+        this.columns = columns;
+        this.estimatedSelectivity = estimatedSelectivity;
+        this.estimatedRows = estimatedRows;
+        this.coveredBy = coveredBy;
+        this.ddl = ddl;
+    }
+}
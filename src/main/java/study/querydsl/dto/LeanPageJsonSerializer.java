@@ -0,0 +1,70 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.data.domain.Page;
+
+import java.io.IOException;
+
+/*
+    Page 응답을 필요한 값만 담은 형태로 직렬화한다.
+    PageImpl 기본 직렬화에 들어가는 pageable / sort / first / last / empty 등의 중복 메타데이터는 쓰지 않는다.
+
+    {"content":[...],"page":0,"size":20,"numberOfElements":20,"totalElements":100,"totalPages":5}
+
+    content 요소의 serializer 는 요소 클래스가 바뀔때만 다시 찾는다.
+*/
+@JsonComponent
+@SuppressWarnings("rawtypes")
+public class LeanPageJsonSerializer extends JsonSerializer<Page> {
+
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString NUMBER_OF_ELEMENTS = new SerializedString("numberOfElements");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+
+    @Override
+    public void serialize(Page page, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeFieldName(CONTENT);
+        generator.writeStartArray();
+        Class<?> elementType = null;
+        JsonSerializer<Object> elementSerializer = null;
+        for (Object element : page.getContent()) {
+            if (element == null) {
+                generator.writeNull();
+                continue;
+            }
+            if (element.getClass() != elementType) {
+                elementType = element.getClass();
+                elementSerializer = serializers.findValueSerializer(elementType);
+            }
+            elementSerializer.serialize(element, generator, serializers);
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(PAGE);
+        generator.writeNumber(page.getNumber());
+        generator.writeFieldName(SIZE);
+        generator.writeNumber(page.getSize());
+        generator.writeFieldName(NUMBER_OF_ELEMENTS);
+        generator.writeNumber(page.getNumberOfElements());
+        generator.writeFieldName(TOTAL_ELEMENTS);
+        generator.writeNumber(page.getTotalElements());
+        generator.writeFieldName(TOTAL_PAGES);
+        generator.writeNumber(page.getTotalPages());
+
+        generator.writeEndObject();
+    }
+
+    @Override
+    public Class<Page> handledType() {
+        return Page.class;
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//회원 + 소속 팀 안에서의 나이 평균 / 순위 (윈도우 함수로 계산)
+@Data
+@NoArgsConstructor
+public class MemberAgeRankDto {
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private double teamAgeAvg;
+    //팀 안에서 나이 많은 순 순위 (같은 나이는 같은 순위)
+    private long teamAgeRank;
+
+    public MemberAgeRankDto(Long memberId, String username, int age, Long teamId, double teamAgeAvg, long teamAgeRank) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamAgeAvg = teamAgeAvg;
+        this.teamAgeRank = teamAgeRank;
+    }
+}
@@ -2,10 +2,16 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class MemberSearchCondition {
     private String username;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    //값 목록 조건 : 목록 중 하나와 같은 회원 (usernames=a,b,c). username / teamName 과 함께 쓰면 둘 다 만족해야 한다.
+    private List<String> usernames;
+    private List<String> teamNames;
 }
@@ -0,0 +1,218 @@
+package study.querydsl.dto;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/*
+    MemberTeamDto 목록 대신 컬럼 단위 primitive 배열로 담는 검색 결과.
+    행마다 객체(Long 2개 + DTO)를 만들지 않고, username / teamName 은 사전 코드로만 저장한다.
+
+    행 접근은 flyweight(Row) 하나를 옮겨가며 읽는다. Row 를 보관하면 안 된다.
+*/
+public final class MemberTeamColumns {
+
+    //팀이 없는 회원의 teamId (시퀀스 id 는 1 부터 시작)
+    public static final long NO_TEAM = 0L;
+
+    private final int size;
+    private final long[] memberIds;
+    private final int[] ages;
+    private final long[] teamIds;
+    private final int[] usernameCodes;
+    private final int[] teamNameCodes;
+    private final String[] usernames;
+    private final String[] teamNames;
+
+    private MemberTeamColumns(int size, long[] memberIds, int[] ages, long[] teamIds,
+                              int[] usernameCodes, int[] teamNameCodes, String[] usernames, String[] teamNames) {
+        this.size = size;
+        this.memberIds = memberIds;
+        this.ages = ages;
+        this.teamIds = teamIds;
+        this.usernameCodes = usernameCodes;
+        this.teamNameCodes = teamNameCodes;
+        this.usernames = usernames;
+        this.teamNames = teamNames;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memberId(int index) {
+        return memberIds[index];
+    }
+
+    public String username(int index) {
+        int code = usernameCodes[index];
+        return code < 0 ? null : usernames[code];
+    }
+
+    public int age(int index) {
+        return ages[index];
+    }
+
+    public boolean hasTeam(int index) {
+        return teamIds[index] != NO_TEAM;
+    }
+
+    public long teamId(int index) {
+        return teamIds[index];
+    }
+
+    public String teamName(int index) {
+        int code = teamNameCodes[index];
+        return code < 0 ? null : teamNames[code];
+    }
+
+    //Row 인스턴스 하나를 재사용한다.
+    public void forEach(Consumer<Row> action) {
+        Row row = new Row();
+        for (int i = 0; i < size; i++) {
+            row.index = i;
+            action.accept(row);
+        }
+    }
+
+    public MemberTeamDto toDto(int index) {
+        return new MemberTeamDto(memberId(index), username(index), age(index),
+                hasTeam(index) ? teamId(index) : null, teamName(index));
+    }
+
+    //배열 + 사전 문자열(String 24 + byte[] 16 + 문자)의 대략적인 힙 사용량
+    public long estimatedBytes() {
+        long bytes = (long) memberIds.length * 8 + ages.length * 4L + teamIds.length * 8L
+                + usernameCodes.length * 4L + teamNameCodes.length * 4L;
+        for (String username : usernames) {
+            bytes += 40 + username.length();
+        }
+        for (String teamName : teamNames) {
+            bytes += 40 + teamName.length();
+        }
+        return bytes;
+    }
+
+    public final class Row {
+        private int index;
+
+        private Row() {
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public long memberId() {
+            return memberIds[index];
+        }
+
+        public String username() {
+            return MemberTeamColumns.this.username(index);
+        }
+
+        public int age() {
+            return ages[index];
+        }
+
+        public boolean hasTeam() {
+            return teamIds[index] != NO_TEAM;
+        }
+
+        public long teamId() {
+            return teamIds[index];
+        }
+
+        public String teamName() {
+            return MemberTeamColumns.this.teamName(index);
+        }
+    }
+
+    /*
+        JDBC 결과를 한 행씩 추가한다. 배열은 1.5배씩 늘리고 build 할때 크기에 맞춘다.
+        같은 문자열은 사전에 한번만 저장된다.
+    */
+    public static final class Builder {
+        private int size;
+        private long[] memberIds;
+        private int[] ages;
+        private long[] teamIds;
+        private int[] usernameCodes;
+        private int[] teamNameCodes;
+        private final Dictionary usernames = new Dictionary();
+        private final Dictionary teamNames = new Dictionary();
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            memberIds = new long[capacity];
+            ages = new int[capacity];
+            teamIds = new long[capacity];
+            usernameCodes = new int[capacity];
+            teamNameCodes = new int[capacity];
+        }
+
+        public Builder add(long memberId, String username, int age, long teamId, String teamName) {
+            if (size == memberIds.length) {
+                grow();
+            }
+            memberIds[size] = memberId;
+            ages[size] = age;
+            teamIds[size] = teamId;
+            usernameCodes[size] = usernames.code(username);
+            teamNameCodes[size] = teamNames.code(teamName);
+            size++;
+            return this;
+        }
+
+        public MemberTeamColumns build() {
+            return new MemberTeamColumns(size,
+                    Arrays.copyOf(memberIds, size),
+                    Arrays.copyOf(ages, size),
+                    Arrays.copyOf(teamIds, size),
+                    Arrays.copyOf(usernameCodes, size),
+                    Arrays.copyOf(teamNameCodes, size),
+                    usernames.values(),
+                    teamNames.values());
+        }
+
+        private void grow() {
+            int capacity = memberIds.length + (memberIds.length >> 1);
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+            usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+            teamNameCodes = Arrays.copyOf(teamNameCodes, capacity);
+        }
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+
+        //null 은 -1
+        private int code(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, code * 2);
+                }
+                values[code] = value;
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        private String[] values() {
+            return Arrays.copyOf(values, codes.size());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+/*
+    MemberTeamColumns 를 DTO 를 만들지 않고 바로 JSON 으로 쓴다.
+    출력 형태는 List<MemberTeamDto> 를 직렬화한 것과 같다.
+*/
+public final class MemberTeamColumnsJsonWriter {
+
+    //필드 이름은 미리 인코딩해 둔다.
+    private static final SerializedString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString AGE = new SerializedString("age");
+    private static final SerializedString TEAM_ID = new SerializedString("teamId");
+    private static final SerializedString TEAM_NAME = new SerializedString("teamName");
+
+    private MemberTeamColumnsJsonWriter() {
+    }
+
+    public static void write(MemberTeamColumns columns, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (int i = 0; i < columns.size(); i++) {
+            generator.writeStartObject();
+
+            generator.writeFieldName(MEMBER_ID);
+            generator.writeNumber(columns.memberId(i));
+
+            generator.writeFieldName(USERNAME);
+            writeString(generator, columns.username(i));
+
+            generator.writeFieldName(AGE);
+            generator.writeNumber(columns.age(i));
+
+            generator.writeFieldName(TEAM_ID);
+            if (columns.hasTeam(i)) {
+                generator.writeNumber(columns.teamId(i));
+            } else {
+                generator.writeNull();
+            }
+
+            generator.writeFieldName(TEAM_NAME);
+            writeString(generator, columns.teamName(i));
+
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeString(JsonGenerator generator, String value) throws IOException {
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+}
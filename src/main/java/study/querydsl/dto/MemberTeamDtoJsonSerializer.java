@@ -0,0 +1,66 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/*
+    MemberTeamDto 직렬화. BeanSerializer(getter 리플렉션 + 프로퍼티 목록 순회) 대신 필드를 직접 쓴다.
+    출력 형태는 기본 직렬화와 같다.(null 필드 포함)
+*/
+@JsonComponent
+public class MemberTeamDtoJsonSerializer extends JsonSerializer<MemberTeamDto> {
+
+    private static final SerializedString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString AGE = new SerializedString("age");
+    private static final SerializedString TEAM_ID = new SerializedString("teamId");
+    private static final SerializedString TEAM_NAME = new SerializedString("teamName");
+
+    @Override
+    public void serialize(MemberTeamDto dto, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeFieldName(MEMBER_ID);
+        writeNumber(generator, dto.getMemberId());
+
+        generator.writeFieldName(USERNAME);
+        writeString(generator, dto.getUsername());
+
+        generator.writeFieldName(AGE);
+        generator.writeNumber(dto.getAge());
+
+        generator.writeFieldName(TEAM_ID);
+        writeNumber(generator, dto.getTeamId());
+
+        generator.writeFieldName(TEAM_NAME);
+        writeString(generator, dto.getTeamName());
+
+        generator.writeEndObject();
+    }
+
+    @Override
+    public Class<MemberTeamDto> handledType() {
+        return MemberTeamDto.class;
+    }
+
+    private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value != null) {
+            generator.writeNumber(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeString(JsonGenerator generator, String value) throws IOException {
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.dto;
+
+//검색 응답에서 클라이언트가 고를 수 있는 필드. (fields=username,age)
+public enum MemberTeamField {
+    MEMBER_ID("memberId"),
+    USERNAME("username"),
+    AGE("age"),
+    TEAM_ID("teamId"),
+    TEAM_NAME("teamName");
+
+    private final String jsonName;
+
+    MemberTeamField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    //없는 필드 이름이면 null
+    public static MemberTeamField fromJsonName(String jsonName) {
+        for (MemberTeamField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//팀 하나(또는 전체)의 회원 수 / 나이 통계. 전체 합계 행은 teamId, teamName 이 없다.
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TeamAgeStatistics {
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private long ageSum;
+    private Double ageAvg;
+    private Integer ageMin;
+    private Integer ageMax;
+
+    public TeamAgeStatistics(Long teamId, String teamName, long count, long ageSum, Integer ageMin, Integer ageMax) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.ageSum = ageSum;
+        this.ageAvg = count > 0 ? (double) ageSum / count : null;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+}
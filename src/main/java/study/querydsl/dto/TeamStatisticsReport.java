@@ -0,0 +1,17 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+//팀별 통계 + 전체 합계
+@Data
+public class TeamStatisticsReport {
+    private List<TeamAgeStatistics> teams;
+    private TeamAgeStatistics total;
+
+    public TeamStatisticsReport(List<TeamAgeStatistics> teams, TeamAgeStatistics total) {
+        this.teams = teams;
+        this.total = total;
+    }
+}
@@ -5,6 +5,14 @@ import lombok.*;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        //username 동등 조건 (+ age 범위)
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        //teamName(team_id) 동등 + age 범위. username 까지 포함해서 검색 프로젝션(id, username, age, team_id)을 인덱스만으로 처리.
+        @Index(name = "idx_member_team_age", columnList = "team_id, age, username"),
+        //age 범위만 있는 경우
+        @Index(name = "idx_member_age", columnList = "age")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -22,6 +30,11 @@ public class Member {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    //행 버전. 커밋 이벤트가 커밋 순서와 다르게 도착해도 메모리 인덱스가 이전 상태로 덮어쓰지 않도록 비교한다. (MemberWriteListener)
+    @Version
+    @Setter(AccessLevel.NONE)
+    private long version;
+
     public Member(String username){
         this.username = username;
     }
@@ -0,0 +1,361 @@
+package study.querydsl.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.IndexConsistencyReport;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.support.MemberRow;
+import study.querydsl.repository.support.MemberRowLoader;
+import study.querydsl.repository.support.MemberWriteListener;
+import study.querydsl.repository.support.MultiValueFilters;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static study.querydsl.repository.support.ReadOnlyQueries.inReadWriteTransaction;
+
+/*
+    페이지 total 계산용 비트맵 인덱스.
+    팀 id 별, 나이별(1살 단위 버킷이라 범위 조건도 정확하다) 회원 id 비트맵을 유지하고
+    카운트는 비트맵 OR(같은 조건 안) / AND(조건 사이) 후 cardinality 로 구한다.
+
+    username 조건은 답할 수 없으므로 비어있는 값을 돌려주고, 호출한 쪽에서 SQL count 로 처리한다.
+    MemberColumnarIndex 와 같이 커밋된 데이터만 반영하므로 쓰기 트랜잭션 안에서는 사용하지 않는다.
+    이벤트 순서도 MemberColumnarIndex 와 같이 다룬다. 회원마다 반영한 상태(나이, 팀, 행 버전)를 들고 있다가
+    버전이 더 큰 상태만 반영하고(지울 비트맵도 이 상태로 찾는다), 최근 삭제된 id 는 늦게 도착한 insert / update 로 되살리지 않는다.
+*/
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.bitmap-count", name = "enabled", havingValue = "true")
+public class MemberBitmapIndex implements MemberWriteListener {
+
+    private final MemberRowLoader memberRowLoader;
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bitmaps bitmaps = new Bitmaps();
+    //재구성 중에 들어온 변경, 새 비트맵으로 교체한 뒤 다시 적용한다.
+    private List<Consumer<Bitmaps>> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    public MemberBitmapIndex(MemberRowLoader memberRowLoader, TeamNameDictionary teamNameDictionary, MeterRegistry meterRegistry) {
+        this.memberRowLoader = memberRowLoader;
+        this.teamNameDictionary = teamNameDictionary;
+
+        Gauge.builder("member.bitmap.memory", this, MemberBitmapIndex::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("member bitmap index build failed, page totals fall back to sql count", e);
+        }
+    }
+
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Bitmaps rebuilt = new Bitmaps();
+        try {
+            memberRowLoader.forEach(rebuilt::upsert);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Consumer<Bitmaps> change : pendingDuringRebuild) {
+                change.accept(rebuilt);
+            }
+            pendingDuringRebuild = null;
+            rebuilt.runOptimize();
+            bitmaps = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //DB 와 비교. 비교 중에 커밋된 변경은 일시적인 불일치로 보일 수 있다.
+    public IndexConsistencyReport checkConsistency() {
+        IndexConsistencyReport report = new IndexConsistencyReport();
+        long[] matchedRows = new long[1];
+        memberRowLoader.forEach(row -> {
+            report.setDatabaseRows(report.getDatabaseRows() + 1);
+            Applied indexed;
+            lock.readLock().lock();
+            try {
+                indexed = bitmaps.applied.get(row.getId());
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (indexed == null) {
+                report.setMissing(report.getMissing() + 1);
+                addSample(report, row.getId());
+            } else {
+                matchedRows[0]++;
+                if (indexed.age != row.getAge() || !Objects.equals(indexed.teamId, row.getTeamId())) {
+                    report.setMismatched(report.getMismatched() + 1);
+                    addSample(report, row.getId());
+                }
+            }
+        });
+        long indexRows;
+        lock.readLock().lock();
+        try {
+            indexRows = bitmaps.all.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+        report.setIndexRows(indexRows);
+        report.setExtra(Math.max(0, indexRows - matchedRows[0]));
+        return report;
+    }
+
+    private static void addSample(IndexConsistencyReport report, long id) {
+        if (report.getSampleIds().size() < 20) {
+            report.getSampleIds().add(id);
+        }
+    }
+
+    //조건에 맞는 회원 수. 비트맵으로 답할 수 없으면 empty.
+    public OptionalLong count(MemberSearchCondition condition) {
+        if (!ready || inReadWriteTransaction() || StringUtils.hasText(condition.getUsername())
+                || MultiValueFilters.present(condition)) {
+            return OptionalLong.empty();
+        }
+        List<Long> teamIds = StringUtils.hasText(condition.getTeamName())
+                ? teamNameDictionary.teamIds(condition.getTeamName())
+                : null;
+
+        lock.readLock().lock();
+        try {
+            return OptionalLong.of(bitmaps.count(teamIds, condition.getAgeGoe(), condition.getAgeLoe()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onMemberInserted(MemberRow row) {
+        apply(target -> target.upsert(row));
+    }
+
+    //before 는 쓰지 않는다. 이벤트가 늦게 도착했으면 인덱스에 반영된 상태와 다를 수 있다.
+    @Override
+    public void onMemberUpdated(MemberRow before, MemberRow after) {
+        apply(target -> target.upsert(after));
+    }
+
+    @Override
+    public void onMemberDeleted(MemberRow row) {
+        apply(target -> target.delete(row.getId()));
+    }
+
+    private double sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return bitmaps.sizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Bitmaps> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(bitmaps);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //회원 한명에 대해 비트맵에 반영한 상태
+    private static final class Applied {
+        private final int age;
+        private final Long teamId;
+        private final long version;
+
+        private Applied(int age, Long teamId, long version) {
+            this.age = age;
+            this.teamId = teamId;
+            this.version = version;
+        }
+    }
+
+    private static final class Bitmaps {
+
+        //늦게 도착하는 이벤트는 길어야 트랜잭션 몇개 차이이므로 최근 삭제만 기억한다.
+        private static final int MAX_TOMBSTONES = 10_000;
+
+        private final Roaring64NavigableMap all = new Roaring64NavigableMap();
+        private final Map<Long, Roaring64NavigableMap> byTeamId = new HashMap<>();
+        private final TreeMap<Integer, Roaring64NavigableMap> byAge = new TreeMap<>();
+        private final Map<Long, Applied> applied = new HashMap<>();
+
+        private final Set<Long> tombstones = Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > MAX_TOMBSTONES;
+            }
+        });
+
+        private void upsert(MemberRow row) {
+            long id = row.getId();
+            if (tombstones.contains(id)) {
+                //삭제 이후에 도착한 이전 상태
+                return;
+            }
+            Applied current = applied.get(id);
+            if (current != null) {
+                if (current.version >= row.getVersion()) {
+                    //이미 반영된 상태이거나 나중에 커밋된 상태가 먼저 반영됐다.
+                    return;
+                }
+                removeBuckets(current, id);
+            }
+            all.addLong(id);
+            if (row.getTeamId() != null) {
+                byTeamId.computeIfAbsent(row.getTeamId(), teamId -> new Roaring64NavigableMap()).addLong(id);
+            }
+            byAge.computeIfAbsent(row.getAge(), age -> new Roaring64NavigableMap()).addLong(id);
+            applied.put(id, new Applied(row.getAge(), row.getTeamId(), row.getVersion()));
+        }
+
+        private void delete(long id) {
+            tombstones.add(id);
+            Applied current = applied.remove(id);
+            if (current == null) {
+                return;
+            }
+            all.removeLong(id);
+            removeBuckets(current, id);
+        }
+
+        private void removeBuckets(Applied current, long id) {
+            if (current.teamId != null) {
+                removeFrom(byTeamId.get(current.teamId), id);
+            }
+            removeFrom(byAge.get(current.age), id);
+        }
+
+        private static void removeFrom(Roaring64NavigableMap bitmap, long id) {
+            if (bitmap != null) {
+                bitmap.removeLong(id);
+            }
+        }
+
+        private long count(List<Long> teamIds, Integer ageGoe, Integer ageLoe) {
+            boolean ageCondition = ageGoe != null || ageLoe != null;
+            Collection<Roaring64NavigableMap> ages = ageCondition ? ageRange(ageGoe, ageLoe) : null;
+
+            if (teamIds == null && !ageCondition) {
+                return all.getLongCardinality();
+            }
+
+            List<Roaring64NavigableMap> teams = null;
+            if (teamIds != null) {
+                teams = new ArrayList<>(teamIds.size());
+                for (Long teamId : teamIds) {
+                    Roaring64NavigableMap bitmap = byTeamId.get(teamId);
+                    if (bitmap != null) {
+                        teams.add(bitmap);
+                    }
+                }
+            }
+
+            //한 회원은 팀 하나, 나이 하나에만 속하므로 한쪽 조건만 있으면 cardinality 합으로 충분하다.
+            if (teams == null) {
+                return cardinality(ages);
+            }
+            if (ages == null) {
+                return cardinality(teams);
+            }
+            if (teams.isEmpty() || ages.isEmpty()) {
+                return 0;
+            }
+            Roaring64NavigableMap teamUnion = union(teams);
+            teamUnion.and(union(ages));
+            return teamUnion.getLongCardinality();
+        }
+
+        private Collection<Roaring64NavigableMap> ageRange(Integer ageGoe, Integer ageLoe) {
+            if (ageGoe != null && ageLoe != null) {
+                return ageGoe > ageLoe ? new ArrayList<>() : byAge.subMap(ageGoe, true, ageLoe, true).values();
+            }
+            return ageGoe != null ? byAge.tailMap(ageGoe, true).values() : byAge.headMap(ageLoe, true).values();
+        }
+
+        private static long cardinality(Collection<Roaring64NavigableMap> bitmaps) {
+            long cardinality = 0;
+            for (Roaring64NavigableMap bitmap : bitmaps) {
+                cardinality += bitmap.getLongCardinality();
+            }
+            return cardinality;
+        }
+
+        private static Roaring64NavigableMap union(Collection<Roaring64NavigableMap> bitmaps) {
+            Roaring64NavigableMap union = new Roaring64NavigableMap();
+            for (Roaring64NavigableMap bitmap : bitmaps) {
+                union.or(bitmap);
+            }
+            return union;
+        }
+
+        private void runOptimize() {
+            all.runOptimize();
+            byTeamId.values().forEach(Roaring64NavigableMap::runOptimize);
+            byAge.values().forEach(Roaring64NavigableMap::runOptimize);
+        }
+
+        private long sizeInBytes() {
+            long bytes = all.getLongSizeInBytes();
+            for (Roaring64NavigableMap bitmap : byTeamId.values()) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+            for (Roaring64NavigableMap bitmap : byAge.values()) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+            //반영한 상태 (HashMap 엔트리 40 + 박싱된 Long 키 16 + Applied 32) + 삭제 기록 (LinkedHashMap 엔트리 48 + Long 16)
+            bytes += applied.size() * 88L + tombstones.size() * 64L;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package study.querydsl.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.ColumnarIndexStats;
+import study.querydsl.dto.IndexConsistencyReport;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberRow;
+import study.querydsl.repository.support.MemberRowLoader;
+import study.querydsl.repository.support.MemberWriteListener;
+import study.querydsl.repository.support.MultiValueFilters;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static study.querydsl.repository.support.ReadOnlyQueries.inReadWriteTransaction;
+
+/*
+    /v1 검색(MemberSearchCondition)용 메모리 컬럼 인덱스.
+    회원 한명이 배열의 slot 하나를 차지한다.
+      long[] ids, int[] ages, int[] teamCodes(팀 id 사전 코드), String[] usernames(같은 값은 하나의 인스턴스로 공유)
+    시작시 DB 에서 전체를 읽어서 만들고, 이후에는 post-commit 이벤트로 갱신한다.
+    동시에 커밋된 트랜잭션의 이벤트는 커밋 순서와 다르게 도착할 수 있으므로 행 버전(Member.version)이 더 큰 상태만 반영하고,
+    삭제된 id 는 한동안 기억해서 늦게 도착한 insert / update 로 되살리지 않는다.
+    검색 결과는 DB 경로와 같이 id 순이다.
+
+    쓰기 트랜잭션 안에서의 검색은 자신의 미커밋 변경이 보여야 하므로 DB 로 보낸다.(canServe)
+    벌크 연산 등 이벤트를 거치지 않는 변경은 checkConsistency / rebuild 로 맞춘다.
+*/
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.columnar-index", name = "enabled", havingValue = "true")
+public class MemberColumnarIndex implements MemberWriteListener {
+
+    private final MemberRowLoader memberRowLoader;
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns = new Columns(1024);
+    //재구성 중에 들어온 변경, 새 컬럼으로 교체한 뒤 다시 적용한다.
+    private List<Consumer<Columns>> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    public MemberColumnarIndex(MemberRowLoader memberRowLoader, TeamNameDictionary teamNameDictionary, MeterRegistry meterRegistry) {
+        this.memberRowLoader = memberRowLoader;
+        this.teamNameDictionary = teamNameDictionary;
+
+        Gauge.builder("member.columnar.rows", this, index -> index.stats().getRows())
+                .register(meterRegistry);
+        Gauge.builder("member.columnar.capacity", this, index -> index.stats().getCapacity())
+                .register(meterRegistry);
+        Gauge.builder("member.columnar.memory", this, index -> index.stats().getEstimatedBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            //인덱스 없이도 DB 로 검색할 수 있으므로 기동은 계속한다.
+            log.warn("member columnar index build failed, searches fall back to the database", e);
+        }
+    }
+
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Columns rebuilt = new Columns(1024);
+        try {
+            memberRowLoader.forEach(rebuilt::upsert);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Consumer<Columns> change : pendingDuringRebuild) {
+                change.accept(rebuilt);
+            }
+            pendingDuringRebuild = null;
+            columns = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean canServe() {
+        return ready && !inReadWriteTransaction();
+    }
+
+    //값 목록 조건(usernames, teamNames)은 처리하지 않는다.
+    public boolean canServe(MemberSearchCondition condition) {
+        return canServe() && !MultiValueFilters.present(condition);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<MemberTeamDto> content;
+        lock.readLock().lock();
+        try {
+            content = columns.search(
+                    condition.getUsername(),
+                    StringUtils.hasText(condition.getTeamName()) ? teamNameDictionary.teamIds(condition.getTeamName()) : null,
+                    condition.getAgeGoe(),
+                    condition.getAgeLoe());
+        } finally {
+            lock.readLock().unlock();
+        }
+        //DB 조회 결과와 같은 순서(id 순)로 맞춘다.
+        content.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return teamNameDictionary.fillTeamNames(content);
+    }
+
+    @Override
+    public void onMemberInserted(MemberRow row) {
+        apply(target -> target.upsert(row));
+    }
+
+    @Override
+    public void onMemberUpdated(MemberRow before, MemberRow after) {
+        apply(target -> target.upsert(after));
+    }
+
+    @Override
+    public void onMemberDeleted(MemberRow row) {
+        apply(target -> target.delete(row.getId()));
+    }
+
+    public ColumnarIndexStats stats() {
+        lock.readLock().lock();
+        try {
+            ColumnarIndexStats stats = columns.stats();
+            stats.setReady(ready);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //DB 와 비교. 비교 중에 커밋된 변경은 일시적인 불일치로 보일 수 있다.
+    public IndexConsistencyReport checkConsistency() {
+        IndexConsistencyReport report = new IndexConsistencyReport();
+        long[] matchedRows = new long[1];
+        memberRowLoader.forEach(row -> {
+            report.setDatabaseRows(report.getDatabaseRows() + 1);
+            MemberRow indexed;
+            lock.readLock().lock();
+            try {
+                indexed = columns.get(row.getId());
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (indexed == null) {
+                report.setMissing(report.getMissing() + 1);
+                addSample(report, row.getId());
+            } else {
+                matchedRows[0]++;
+                if (!indexed.equals(row)) {
+                    report.setMismatched(report.getMismatched() + 1);
+                    addSample(report, row.getId());
+                }
+            }
+        });
+        long indexRows = stats().getRows();
+        report.setIndexRows(indexRows);
+        report.setExtra(Math.max(0, indexRows - matchedRows[0]));
+        return report;
+    }
+
+    private static void addSample(IndexConsistencyReport report, long id) {
+        if (report.getSampleIds().size() < 20) {
+            report.getSampleIds().add(id);
+        }
+    }
+
+    private void apply(Consumer<Columns> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(columns);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Columns {
+
+        private static final int NO_TEAM = -1;
+        //시퀀스로 생성되는 id 는 1 부터 시작하므로 0 은 빈 slot 표시로 쓴다.
+        private static final long EMPTY = 0L;
+        //늦게 도착하는 이벤트는 길어야 트랜잭션 몇개 차이이므로 최근 삭제만 기억한다.
+        private static final int MAX_TOMBSTONES = 10_000;
+
+        private long[] ids;
+        private long[] versions;
+        private int[] ages;
+        private int[] teamCodes;
+        private String[] usernames;
+        //사용한 적이 있는 slot 의 끝
+        private int size;
+        private int rows;
+
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+
+        private final Map<Long, Integer> slotById = new HashMap<>();
+
+        private long[] teamIdByCode = new long[16];
+        private int teamCount;
+        private final Map<Long, Integer> codeByTeamId = new HashMap<>();
+
+        //같은 username 의 slot 들이 공유하는 인스턴스. 마지막 slot 이 쓰지 않게 되면 지운다.
+        private final Map<String, PooledUsername> usernamePool = new HashMap<>();
+
+        private final Set<Long> tombstones = Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > MAX_TOMBSTONES;
+            }
+        });
+
+        private Columns(int capacity) {
+            ids = new long[capacity];
+            versions = new long[capacity];
+            ages = new int[capacity];
+            teamCodes = new int[capacity];
+            usernames = new String[capacity];
+        }
+
+        private void upsert(MemberRow row) {
+            if (tombstones.contains(row.getId())) {
+                //삭제 이후에 도착한 이전 상태
+                return;
+            }
+            Integer slot = slotById.get(row.getId());
+            if (slot == null) {
+                slot = allocate();
+                slotById.put(row.getId(), slot);
+                ids[slot] = row.getId();
+                rows++;
+            } else if (versions[slot] >= row.getVersion()) {
+                //이미 반영된 상태이거나 나중에 커밋된 상태가 먼저 반영됐다.
+                return;
+            }
+            versions[slot] = row.getVersion();
+            ages[slot] = row.getAge();
+            teamCodes[slot] = encodeTeam(row.getTeamId());
+            String previous = usernames[slot];
+            usernames[slot] = intern(row.getUsername());
+            release(previous);
+        }
+
+        private void delete(long id) {
+            tombstones.add(id);
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            ids[slot] = EMPTY;
+            release(usernames[slot]);
+            usernames[slot] = null;
+            teamCodes[slot] = NO_TEAM;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            rows--;
+        }
+
+        private MemberRow get(long id) {
+            Integer slot = slotById.get(id);
+            if (slot == null) {
+                return null;
+            }
+            return new MemberRow(id, usernames[slot], ages[slot], decodeTeam(teamCodes[slot]), versions[slot]);
+        }
+
+        private List<MemberTeamDto> search(String username, List<Long> teamIds, Integer ageGoe, Integer ageLoe) {
+            List<MemberTeamDto> result = new ArrayList<>();
+
+            //username 은 풀에 있는 인스턴스와 참조 비교만 한다. 풀에 없으면 일치하는 회원도 없다.
+            String pooledUsername = null;
+            if (StringUtils.hasText(username)) {
+                PooledUsername pooled = usernamePool.get(username);
+                if (pooled == null) {
+                    return result;
+                }
+                pooledUsername = pooled.value;
+            }
+
+            boolean[] teamFilter = null;
+            if (teamIds != null) {
+                teamFilter = new boolean[teamCount];
+                boolean any = false;
+                for (Long teamId : teamIds) {
+                    Integer code = codeByTeamId.get(teamId);
+                    if (code != null) {
+                        teamFilter[code] = true;
+                        any = true;
+                    }
+                }
+                if (!any) {
+                    return result;
+                }
+            }
+
+            int minAge = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+            int maxAge = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+
+            for (int slot = 0; slot < size; slot++) {
+                long id = ids[slot];
+                if (id == EMPTY) {
+                    continue;
+                }
+                int age = ages[slot];
+                if (age < minAge || age > maxAge) {
+                    continue;
+                }
+                int teamCode = teamCodes[slot];
+                if (teamFilter != null && (teamCode == NO_TEAM || !teamFilter[teamCode])) {
+                    continue;
+                }
+                if (pooledUsername != null && usernames[slot] != pooledUsername) {
+                    continue;
+                }
+                result.add(new MemberTeamDto(id, usernames[slot], age, decodeTeam(teamCode)));
+            }
+            return result;
+        }
+
+        private ColumnarIndexStats stats() {
+            int capacity = ids.length;
+            //배열(long + long + int + int + 참조) + 사전 배열 + 빈 slot 스택
+            long bytes = (long) capacity * (8 + 8 + 4 + 4 + 8) + teamIdByCode.length * 8L + freeSlots.length * 4L;
+            //HashMap 엔트리(노드 32 + 테이블 참조 8) + 박싱된 Long/Integer 키, 값 16 + 16
+            bytes += (long) (slotById.size() + codeByTeamId.size()) * 72;
+            //삭제 기록 (LinkedHashMap 엔트리 40 + 테이블 참조 8 + 박싱된 Long 16)
+            bytes += tombstones.size() * 64L;
+            for (String username : usernamePool.keySet()) {
+                //String 객체 24 + byte[] 헤더 16 + 문자(compact string) + 풀 엔트리 40 + 참조 수 16
+                bytes += 24 + 16 + username.length() + 40 + 16;
+            }
+
+            ColumnarIndexStats stats = new ColumnarIndexStats();
+            stats.setRows(rows);
+            stats.setCapacity(capacity);
+            stats.setTeams(teamCount);
+            stats.setDistinctUsernames(usernamePool.size());
+            stats.setEstimatedBytes(bytes);
+            return stats;
+        }
+
+        private int allocate() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (size == ids.length) {
+                int capacity = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamCodes = Arrays.copyOf(teamCodes, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+            }
+            return size++;
+        }
+
+        private int encodeTeam(Long teamId) {
+            if (teamId == null) {
+                return NO_TEAM;
+            }
+            Integer code = codeByTeamId.get(teamId);
+            if (code == null) {
+                if (teamCount == teamIdByCode.length) {
+                    teamIdByCode = Arrays.copyOf(teamIdByCode, teamCount * 2);
+                }
+                code = teamCount++;
+                teamIdByCode[code] = teamId;
+                codeByTeamId.put(teamId, code);
+            }
+            return code;
+        }
+
+        private Long decodeTeam(int teamCode) {
+            return teamCode == NO_TEAM ? null : teamIdByCode[teamCode];
+        }
+
+        private String intern(String username) {
+            if (username == null) {
+                return null;
+            }
+            PooledUsername pooled = usernamePool.computeIfAbsent(username, PooledUsername::new);
+            pooled.slots++;
+            return pooled.value;
+        }
+
+        private void release(String username) {
+            if (username == null) {
+                return;
+            }
+            PooledUsername pooled = usernamePool.get(username);
+            if (pooled != null && --pooled.slots == 0) {
+                usernamePool.remove(username);
+            }
+        }
+    }
+
+    private static final class PooledUsername {
+        private final String value;
+        //이 인스턴스를 쓰는 slot 수
+        private int slots;
+
+        private PooledUsername(String value) {
+            this.value = value;
+        }
+    }
+}
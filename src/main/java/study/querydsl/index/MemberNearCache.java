@@ -0,0 +1,101 @@
+package study.querydsl.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberRow;
+import study.querydsl.repository.support.MemberRowLoader;
+import study.querydsl.repository.support.MemberWriteListener;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static study.querydsl.repository.support.ReadOnlyQueries.inReadWriteTransaction;
+
+/*
+    id 로 자주 조회되는 회원(관리자 계정, 봇 등)의 프로세스 내부 캐시.
+    회원 한건의 스냅샷(MemberRow, 불변)을 보관하고 조회할때마다 새 MemberTeamDto 를 만든다.(teamName 은 사전에서)
+
+    Caffeine 의 W-TinyLFU : 최근 접근 빈도가 캐시에서 밀려날 항목보다 낮은 항목은 들어오지 못하므로
+    한번씩만 조회되는 회원들이 자주 조회되는 회원을 밀어내지 않는다. 최대 건수 / ttl 로 제한한다.
+
+    커밋된 변경(MemberWriteListener)으로 무효화한다. 벌크 연산은 이벤트가 없으므로 ttl 까지 이전 값이 보일 수 있다.
+    없는 회원은 cache.get(id, loader) 로 읽어 넣는다. 읽는 동안 같은 키의 무효화(remove)는 읽기가 끝날때까지 기다렸다가
+    읽은 값을 지우므로, 커밋 전에 읽은 이전 값이 남지 않는다. 다른 키의 조회 / 무효화는 막지 않는다.
+    다른 메모리 인덱스와 같이 쓰기 트랜잭션 안에서는 사용하지 않는다.
+*/
+@Component
+@ConditionalOnProperty(prefix = "app.near-cache", name = "enabled", havingValue = "true")
+public class MemberNearCache implements MemberWriteListener {
+
+    public static final String CACHE_NAME = "member.near-cache";
+
+    private final MemberRowLoader memberRowLoader;
+    private final TeamNameDictionary teamNameDictionary;
+    private final Cache<Long, MemberRow> cache;
+
+    public MemberNearCache(MemberRowLoader memberRowLoader, TeamNameDictionary teamNameDictionary, MeterRegistry meterRegistry,
+                           @Value("${app.near-cache.maximum-size:10000}") long maximumSize,
+                           @Value("${app.near-cache.time-to-live:PT5M}") Duration timeToLive) {
+        this.memberRowLoader = memberRowLoader;
+        this.teamNameDictionary = teamNameDictionary;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+
+        //cache.gets(hit/miss), cache.puts, cache.evictions, cache.size ...
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder(CACHE_NAME + ".hit-ratio", cache, target -> target.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    public boolean canServe() {
+        return !inReadWriteTransaction();
+    }
+
+    public Optional<MemberTeamDto> findById(long id) {
+        //없는 회원(null)은 넣지 않는다.
+        MemberRow row = cache.get(id, key -> memberRowLoader.findById(key).orElse(null));
+        if (row == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new MemberTeamDto(row.getId(), row.getUsername(), row.getAge(),
+                row.getTeamId(), teamNameDictionary.teamName(row.getTeamId())));
+    }
+
+    public void invalidate(long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    //새 회원은 캐시에 없다. 조회될때 들어온다.
+    @Override
+    public void onMemberInserted(MemberRow row) {
+    }
+
+    @Override
+    public void onMemberUpdated(MemberRow before, MemberRow after) {
+        invalidate(after.getId());
+    }
+
+    @Override
+    public void onMemberDeleted(MemberRow row) {
+        invalidate(row.getId());
+    }
+}
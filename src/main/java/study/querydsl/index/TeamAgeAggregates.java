@@ -0,0 +1,417 @@
+package study.querydsl.index;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamAgeStatistics;
+import study.querydsl.dto.TeamStatisticsReport;
+import study.querydsl.repository.support.MemberRow;
+import study.querydsl.repository.support.MemberWriteListener;
+import study.querydsl.repository.support.MultiValueFilters;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.support.ReadOnlyQueries.inReadWriteTransaction;
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
+
+/*
+    팀별 회원 수 / 나이 합계 / 나이 분포(히스토그램)를 메모리에 유지한다.
+    회원 저장 / 나이 변경 / 팀 변경(changeTeam) / 삭제의 post-commit 이벤트로 증감하고,
+    주기적으로 DB 에서 다시 집계해서 맞춘다.(reconcile, 차이는 team.stats.reconcile.drift 로 기록)
+
+    min / max 는 증감으로 유지할 수 없으므로 나이별 회원 수를 저장하고 조회할때 양 끝에서 찾는다.
+    그래서 나이 범위 조건도 회원 수와 관계없이 팀 수 * 나이 범위 만큼의 계산으로 답한다.
+
+    이전 상태를 모르는 변경이 있거나 음수가 되면(이벤트 누락) reconcile 이 성공할때까지 DB 로 조회하게 하고,
+    그동안은 retry-interval 마다 다시 시도한다.
+*/
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.team-stats", name = "enabled", havingValue = "true")
+public class TeamAgeAggregates implements MemberWriteListener {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TeamNameDictionary teamNameDictionary;
+    private final Counter driftCounter;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Aggregates aggregates = new Aggregates();
+    //reconcile 중에 들어온 변경. 회원별로 가장 최신(version) 상태만 남긴다. reconcile 중이 아니면 null
+    private Map<Long, Latest> changedDuringReconcile;
+    private volatile boolean ready;
+    private volatile boolean stale;
+
+    public TeamAgeAggregates(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                             TeamNameDictionary teamNameDictionary, MeterRegistry meterRegistry) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        //집계 쿼리와 변경된 회원 조회가 같은 스냅샷을 봐야 한다.
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.teamNameDictionary = teamNameDictionary;
+        this.driftCounter = Counter.builder("team.stats.reconcile.drift")
+                .description("members whose team/age aggregate differed from the database at reconcile")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("team age aggregates build failed, team statistics fall back to sql", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.team-stats.reconcile-interval:PT10M}",
+            initialDelayString = "${app.team-stats.reconcile-interval:PT10M}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("team age aggregates reconcile failed", e);
+        }
+    }
+
+    //집계를 만들지 못했거나 이벤트 누락으로 DB 로 조회하는 동안에는 짧은 주기로 다시 맞춘다.
+    @Scheduled(fixedDelayString = "${app.team-stats.retry-interval:PT10S}",
+            initialDelayString = "${app.team-stats.retry-interval:PT10S}")
+    public void retryReconcile() {
+        if (ready && !stale) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("team age aggregates reconcile retry failed", e);
+        }
+    }
+
+    /*
+        DB 에서 다시 집계해서 교체한다. 이전 집계와 다른 회원 수를 돌려준다.
+        집계 쿼리가 어떤 커밋까지 봤는지 알 수 없으므로, 집계 중에 변경 이벤트가 들어온 회원은
+        같은 스냅샷에서 그 회원의 상태를 읽어 빼고, 이벤트의 최신 상태를 더한다.
+        (이벤트를 다시 적용하지 않으므로 스냅샷에 이미 들어있는 변경을 두번 세지 않는다)
+        교체 이후의 이벤트는 이 최신 상태에서부터 증감한다.
+    */
+    public synchronized long reconcile() {
+        lock.writeLock().lock();
+        try {
+            changedDuringReconcile = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            return readOnlyTransaction.execute(status -> {
+                Aggregates loaded = load();
+                Map<Long, MemberRow> snapshotRows = new HashMap<>();
+                Set<Long> read = new HashSet<>();
+                readRows(changedIds(read), snapshotRows, read);
+
+                lock.writeLock().lock();
+                try {
+                    //위에서 읽은 뒤에 들어온 회원 (보통 없다)
+                    readRows(changedIds(read), snapshotRows, read);
+                    for (Map.Entry<Long, Latest> entry : changedDuringReconcile.entrySet()) {
+                        MemberRow snapshot = snapshotRows.get(entry.getKey());
+                        if (snapshot != null) {
+                            loaded.add(snapshot.getTeamId(), snapshot.getAge(), -1);
+                        }
+                        MemberRow latest = entry.getValue().row;
+                        if (latest != null) {
+                            loaded.add(latest.getTeamId(), latest.getAge(), 1);
+                        }
+                    }
+                    long drift = ready ? aggregates.difference(loaded) : 0;
+                    if (drift > 0) {
+                        log.info("team age aggregates drifted from the database by {} members, replaced", drift);
+                        driftCounter.increment(drift);
+                    }
+                    aggregates = loaded;
+                    stale = loaded.broken;
+                    ready = true;
+                    return drift;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringReconcile = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    //조건에 맞는 팀별 통계. 메모리 집계로 답할 수 없으면 empty.
+    public Optional<TeamStatisticsReport> statistics(MemberSearchCondition condition) {
+        if (!ready || stale || inReadWriteTransaction() || StringUtils.hasText(condition.getUsername())
+                || MultiValueFilters.present(condition)) {
+            return Optional.empty();
+        }
+        Set<Long> teamIds = StringUtils.hasText(condition.getTeamName())
+                ? new HashSet<>(teamNameDictionary.teamIds(condition.getTeamName()))
+                : null;
+        int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+        int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+
+        List<TeamAgeStatistics> teams = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, Aggregate> entry : aggregates.byTeamId.entrySet()) {
+                if (teamIds != null && !teamIds.contains(entry.getKey())) {
+                    continue;
+                }
+                TeamAgeStatistics statistics = entry.getValue().statistics(entry.getKey(), ageGoe, ageLoe);
+                if (statistics != null) {
+                    teams.add(statistics);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        //SQL 조회와 같은 순서 (team id 순, 팀 없음은 마지막)
+        teams.sort(Comparator.comparing(TeamAgeStatistics::getTeamId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        long count = 0;
+        long ageSum = 0;
+        Integer ageMin = null;
+        Integer ageMax = null;
+        for (TeamAgeStatistics statistics : teams) {
+            statistics.setTeamName(teamNameDictionary.teamName(statistics.getTeamId()));
+            count += statistics.getCount();
+            ageSum += statistics.getAgeSum();
+            ageMin = ageMin == null ? statistics.getAgeMin() : Math.min(ageMin, statistics.getAgeMin());
+            ageMax = ageMax == null ? statistics.getAgeMax() : Math.max(ageMax, statistics.getAgeMax());
+        }
+        return Optional.of(new TeamStatisticsReport(teams, new TeamAgeStatistics(null, null, count, ageSum, ageMin, ageMax)));
+    }
+
+    @Override
+    public void onMemberInserted(MemberRow row) {
+        apply(row.getId(), row.getVersion(), row, target -> target.add(row.getTeamId(), row.getAge(), 1));
+    }
+
+    @Override
+    public void onMemberUpdated(MemberRow before, MemberRow after) {
+        apply(after.getId(), after.getVersion(), after, target -> {
+            if (before == null) {
+                //증감할 이전 값을 모른다.
+                target.broken = true;
+                return;
+            }
+            target.add(before.getTeamId(), before.getAge(), -1);
+            target.add(after.getTeamId(), after.getAge(), 1);
+        });
+    }
+
+    @Override
+    public void onMemberDeleted(MemberRow row) {
+        apply(row.getId(), row.getVersion(), null, target -> target.add(row.getTeamId(), row.getAge(), -1));
+    }
+
+    //latest 는 변경 후 상태, 삭제면 null
+    private void apply(Long memberId, long version, MemberRow latest, Consumer<Aggregates> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(aggregates);
+            if (changedDuringReconcile != null) {
+                Latest current = changedDuringReconcile.get(memberId);
+                //이벤트는 커밋 순서와 다르게 올 수 있다. 같은 version 이면 삭제가 나중이다.
+                if (current == null || version > current.version || (version == current.version && latest == null)) {
+                    changedDuringReconcile.put(memberId, new Latest(version, latest));
+                }
+            }
+            stale = aggregates.broken;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Set<Long> changedIds(Set<Long> read) {
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new HashSet<>(changedDuringReconcile.keySet());
+            ids.removeAll(read);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //현재 트랜잭션(집계 쿼리와 같은 스냅샷)에서 회원 상태를 읽는다. 없는 회원은 snapshotRows 에 넣지 않는다.
+    private void readRows(Set<Long> ids, Map<Long, MemberRow> snapshotRows, Set<Long> read) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Tuple> rows = readOnly(queryFactory
+                .select(member.id, member.team.id, member.age)
+                .from(member)
+                .where(MultiValueFilters.in(member.id, ids)))
+                .fetch();
+        for (Tuple row : rows) {
+            Long id = row.get(member.id);
+            snapshotRows.put(id, new MemberRow(id, null, row.get(member.age), row.get(member.team.id), 0));
+        }
+        read.addAll(ids);
+    }
+
+    private Aggregates load() {
+        List<Tuple> rows = readOnly(queryFactory
+                .select(member.team.id, member.age, member.count())
+                .from(member)
+                .groupBy(member.team.id, member.age))
+                .fetch();
+
+        Aggregates loaded = new Aggregates();
+        for (Tuple row : rows) {
+            loaded.add(row.get(member.team.id), row.get(member.age), row.get(member.count()));
+        }
+        return loaded;
+    }
+
+    private static final class Aggregates {
+        //팀이 없는 회원은 null 키
+        private final Map<Long, Aggregate> byTeamId = new HashMap<>();
+        //음수가 되었거나 이전 상태를 모르는 변경이 있었음
+        private boolean broken;
+
+        private void add(Long teamId, int age, long delta) {
+            Aggregate aggregate = byTeamId.computeIfAbsent(teamId, key -> new Aggregate());
+            if (!aggregate.add(age, delta)) {
+                broken = true;
+            }
+            if (aggregate.count == 0) {
+                byTeamId.remove(teamId);
+            }
+        }
+
+        //팀, 나이별 회원 수 차이의 합
+        private long difference(Aggregates other) {
+            long difference = 0;
+            Set<Long> teamIds = new HashSet<>(byTeamId.keySet());
+            teamIds.addAll(other.byTeamId.keySet());
+            for (Long teamId : teamIds) {
+                difference += Aggregate.difference(byTeamId.get(teamId), other.byTeamId.get(teamId));
+            }
+            return difference;
+        }
+    }
+
+    private static final class Latest {
+        private final long version;
+        private final MemberRow row;
+
+        private Latest(long version, MemberRow row) {
+            this.version = version;
+            this.row = row;
+        }
+    }
+
+    private static final class Aggregate {
+        private long count;
+        private long ageSum;
+        //index = 나이 - ageOffset
+        private long[] ageCounts = new long[0];
+        private int ageOffset;
+
+        //음수가 되면 false
+        private boolean add(int age, long delta) {
+            ensureAge(age);
+            int index = age - ageOffset;
+            ageCounts[index] += delta;
+            count += delta;
+            ageSum += age * delta;
+            return ageCounts[index] >= 0 && count >= 0;
+        }
+
+        private TeamAgeStatistics statistics(Long teamId, int ageGoe, int ageLoe) {
+            long rangeCount = 0;
+            long rangeSum = 0;
+            Integer min = null;
+            Integer max = null;
+            int from = (int) Math.max(0L, (long) ageGoe - ageOffset);
+            int to = (int) Math.min(ageCounts.length - 1L, (long) ageLoe - ageOffset);
+            for (int index = from; index <= to; index++) {
+                long ageCount = ageCounts[index];
+                if (ageCount <= 0) {
+                    continue;
+                }
+                int age = index + ageOffset;
+                rangeCount += ageCount;
+                rangeSum += age * ageCount;
+                if (min == null) {
+                    min = age;
+                }
+                max = age;
+            }
+            return rangeCount > 0 ? new TeamAgeStatistics(teamId, null, rangeCount, rangeSum, min, max) : null;
+        }
+
+        private void ensureAge(int age) {
+            if (ageCounts.length == 0) {
+                ageOffset = age;
+                ageCounts = new long[1];
+                return;
+            }
+            if (age < ageOffset) {
+                int shift = ageOffset - age;
+                long[] grown = new long[ageCounts.length + shift];
+                System.arraycopy(ageCounts, 0, grown, shift, ageCounts.length);
+                ageCounts = grown;
+                ageOffset = age;
+            } else if (age - ageOffset >= ageCounts.length) {
+                ageCounts = Arrays.copyOf(ageCounts, age - ageOffset + 1);
+            }
+        }
+
+        private long countAt(int age) {
+            int index = age - ageOffset;
+            return index >= 0 && index < ageCounts.length ? ageCounts[index] : 0;
+        }
+
+        private static long difference(Aggregate left, Aggregate right) {
+            if (left == null && right == null) {
+                return 0;
+            }
+            if (left == null || right == null) {
+                return left != null ? left.count : right.count;
+            }
+            int from = Math.min(left.ageOffset, right.ageOffset);
+            int to = Math.max(left.ageOffset + left.ageCounts.length, right.ageOffset + right.ageCounts.length);
+            long difference = 0;
+            for (int age = from; age < to; age++) {
+                difference += Math.abs(left.countAt(age) - right.countAt(age));
+            }
+            return difference;
+        }
+    }
+}
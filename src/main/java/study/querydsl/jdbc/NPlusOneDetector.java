@@ -0,0 +1,124 @@
+package study.querydsl.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    N+1 감지 (app.n-plus-one.enabled=true 일때만 등록된다)
+    한 작업 단위에서 같은 모양의 문장이 threshold 번 이상 실행되면 경고 로그를 남긴다.
+    (지연 로딩을 루프에서 건드리거나, 조회를 루프 안에서 호출하는 경우)
+
+    작업 단위
+    - 트랜잭션 안에서 시작된 경우 : 트랜잭션이 끝날때까지 (bulkhead 스레드의 검색 포함)
+    - 트랜잭션 밖(open-in-view 지연 로딩 등) : 요청이 끝날때까지 (NPlusOneDetectorConfig 의 필터가 startRequest / finishRequest)
+    - 둘 다 아닌 스레드(스케줄러, 이벤트 리스너 등) : 작업 경계를 알 수 없어 서로 관계없는 작업이 한 단위로 묶이므로 보지 않는다.
+    한 단위가 MAX_WINDOW_STATEMENTS 를 넘으면 거기서 끊는다.
+*/
+@Slf4j
+public class NPlusOneDetector {
+
+    private static final int MAX_WINDOW_STATEMENTS = 10_000;
+
+    private final int threshold;
+    private final ThreadLocal<Window> windows = new ThreadLocal<>();
+    //요청을 처리 중인 스레드
+    private final ThreadLocal<Boolean> requests = new ThreadLocal<>();
+
+    public NPlusOneDetector(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be at least 2: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    void onStatement(String sql) {
+        Window window = windows.get();
+        if (window == null) {
+            boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+            if (!transactional && requests.get() == null) {
+                return;
+            }
+            window = new Window();
+            windows.set(window);
+            if (transactional) {
+                window.transactional = true;
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        finish();
+                    }
+                });
+            }
+        }
+        window.add(StatementCount.shape(sql), threshold);
+        if (window.statements >= MAX_WINDOW_STATEMENTS) {
+            finish();
+        }
+    }
+
+    public void startRequest() {
+        requests.set(Boolean.TRUE);
+    }
+
+    public void finishRequest() {
+        finish();
+        requests.remove();
+    }
+
+    //현재 스레드의 작업 단위를 끝내고 의심되는 문장을 로그로 남긴다.
+    public void finish() {
+        Window window = windows.get();
+        if (window == null) {
+            return;
+        }
+        windows.remove();
+        for (Map.Entry<String, Repeat> entry : window.repeats.entrySet()) {
+            Repeat repeat = entry.getValue();
+            if (repeat.count >= threshold) {
+                log.warn("N+1 suspected: same statement executed {} times in one {} (of {} statements), first repeated at {}: {}",
+                        repeat.count, window.transactional ? "transaction" : "request", window.statements,
+                        repeat.callSite, entry.getKey());
+            }
+        }
+    }
+
+    /*
+        문장을 실행시킨 애플리케이션 코드 위치.
+        스택 트레이스는 threshold 에 처음 도달한 문장에서 한번만 만든다.
+    */
+    private static String callSite() {
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith("study.querydsl.")
+                    && !className.startsWith(NPlusOneDetector.class.getPackage().getName() + ".")
+                    && !className.contains("$$")) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+
+    private static class Window {
+        private final Map<String, Repeat> repeats = new LinkedHashMap<>();
+        private boolean transactional;
+        private int statements;
+
+        private void add(String shape, int threshold) {
+            statements++;
+            Repeat repeat = repeats.computeIfAbsent(shape, s -> new Repeat());
+            repeat.count++;
+            if (repeat.count == threshold) {
+                repeat.callSite = callSite();
+            }
+        }
+    }
+
+    private static class Repeat {
+        private int count;
+        private String callSite;
+    }
+}
@@ -0,0 +1,102 @@
+package study.querydsl.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    현재 스레드에서 실행된 SQL 문을 센다. (StatementCountListener 가 p6spy 이벤트로 기록)
+    JPA / JdbcTemplate / querydsl-sql 모두 같은 DataSource 를 거치므로 경로와 상관없이 실제로 DB 에 보낸 문장 수다.
+
+    try (StatementCount count = StatementCount.start()) {
+        memberRepository.searchPageComplex(condition, pageable);
+        assertThat(count.statements()).isLessThanOrEqualTo(2);
+    }
+
+    범위는 중첩될 수 있고, 열려 있는 모든 범위에 기록된다. 다른 스레드(bulkhead 등)에서 실행된 문장은 세지 않는다.
+*/
+public final class StatementCount implements AutoCloseable {
+
+    private static final ThreadLocal<Deque<StatementCount>> OPEN = new ThreadLocal<>();
+
+    private final List<String> sqls = new ArrayList<>();
+
+    private StatementCount() {
+    }
+
+    public static StatementCount start() {
+        Deque<StatementCount> open = OPEN.get();
+        if (open == null) {
+            open = new ArrayDeque<>();
+            OPEN.set(open);
+        }
+        StatementCount count = new StatementCount();
+        open.push(count);
+        return count;
+    }
+
+    //StatementCountListener 에서 호출
+    static void record(String sql) {
+        Deque<StatementCount> open = OPEN.get();
+        if (open == null) {
+            return;
+        }
+        for (StatementCount count : open) {
+            count.sqls.add(sql);
+        }
+    }
+
+    public int statements() {
+        return sqls.size();
+    }
+
+    public int selects() {
+        int selects = 0;
+        for (String sql : sqls) {
+            if (shape(sql).startsWith("select")) {
+                selects++;
+            }
+        }
+        return selects;
+    }
+
+    //같은 모양(공백 / 대소문자 무시)의 문장이 가장 많이 실행된 횟수. 1 보다 크면 N+1 을 의심한다.
+    public int maxRepeats() {
+        Map<String, Integer> repeats = new HashMap<>();
+        int max = 0;
+        for (String sql : sqls) {
+            max = Math.max(max, repeats.merge(shape(sql), 1, Integer::sum));
+        }
+        return max;
+    }
+
+    public List<String> sqls() {
+        return Collections.unmodifiableList(sqls);
+    }
+
+    @Override
+    public void close() {
+        Deque<StatementCount> open = OPEN.get();
+        if (open == null) {
+            return;
+        }
+        open.remove(this);
+        if (open.isEmpty()) {
+            OPEN.remove();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sqls.size() + " statements " + sqls;
+    }
+
+    //바인드 값은 ? 로 남아 있으므로 공백 / 대소문자만 맞춘다.
+    static String shape(String sql) {
+        return sql.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+}
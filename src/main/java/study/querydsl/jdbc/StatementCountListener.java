@@ -0,0 +1,37 @@
+package study.querydsl.jdbc;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/*
+    p6spy 가 감싼 DataSource 에서 실행된 문장을 StatementCount / NPlusOneDetector 로 넘긴다.
+    p6spy-spring-boot-starter 는 JdbcEventListener 빈을 찾아서 등록한다. (decorator.datasource.enabled=false 이면 호출되지 않는다)
+*/
+@Component
+public class StatementCountListener extends SimpleJdbcEventListener {
+
+    //app.n-plus-one.enabled=false 이면 없다.
+    private final ObjectProvider<NPlusOneDetector> nPlusOneDetector;
+
+    public StatementCountListener(ObjectProvider<NPlusOneDetector> nPlusOneDetector) {
+        this.nPlusOneDetector = nPlusOneDetector;
+    }
+
+    //batch 는 한번의 실행으로 센다.
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql == null) {
+            return;
+        }
+        StatementCount.record(sql);
+        NPlusOneDetector detector = nPlusOneDetector.getIfAvailable();
+        if (detector != null) {
+            detector.onStatement(sql);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberAgeRankDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.DirectProjection;
+import study.querydsl.repository.support.MemberSqlWhere;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.support.MultiValueFilters.teamNameIn;
+import static study.querydsl.repository.support.MultiValueFilters.usernameIn;
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
+
+/*
+    윈도우 함수를 쓰는 회원 분석 조회. (팀 안에서의 순위, 팀별 상위 N)
+*/
+@Slf4j
+@Repository
+@Transactional(readOnly = true)
+public class MemberAnalyticsRepository {
+
+    private static final DirectProjection<MemberTeamDto> MEMBER_TEAM_DTO = DirectProjection.of(MemberTeamDto.class,
+            member.id.as("memberId"), member.username, member.age, member.team.id.as("teamId"));
+
+    //팀별 상위 N 의 최대 N
+    public static final int MAX_TOP_N = 100;
+
+    private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TeamNameDictionary teamNameDictionary;
+    //auto : 윈도우 함수 지원 여부를 한번 확인해서 결정 / window / correlated (팀 평균 비교에도 쓴다)
+    private final String topNStrategy;
+    //auto 일때 확인 결과 (null 이면 아직 확인 전)
+    private volatile Boolean windowFunctions;
+
+    public MemberAnalyticsRepository(EntityManager entityManager, JdbcTemplate jdbcTemplate, TeamNameDictionary teamNameDictionary,
+                                     @Value("${app.top-n.strategy:auto}") String topNStrategy) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.teamNameDictionary = teamNameDictionary;
+        this.topNStrategy = topNStrategy;
+        if (!"auto".equals(topNStrategy) && !"window".equals(topNStrategy) && !"correlated".equals(topNStrategy)) {
+            throw new IllegalArgumentException("app.top-n.strategy must be auto, window or correlated: " + topNStrategy);
+        }
+    }
+
+    /*
+        조건에 맞는 회원 중 소속 팀(조건에 맞는 회원끼리)의 평균 나이보다 나이가 많은 회원. 팀이 없는 회원은 제외.
+        윈도우 함수 결과는 where 절에 쓸 수 없으므로, 평균 / 순위를 from 절 서브쿼리에서 한번에 구하고 바깥에서 거른다.(native SQL)
+        평균 이하인 회원은 전송하지 않는다.
+
+        age 는 int 라서 avg(age) 는 정수로 잘린다.(H2) double 로 바꿔서 평균을 구한다.
+    */
+    public List<MemberAgeRankDto> aboveTeamAverageAge(MemberSearchCondition condition) {
+        List<MemberAgeRankDto> result = useWindowFunctions()
+                ? aboveTeamAverageAgeByWindow(condition)
+                : aboveTeamAverageAgeByCorrelated(condition);
+        for (MemberAgeRankDto row : result) {
+            row.setTeamName(teamNameDictionary.teamName(row.getTeamId()));
+        }
+        return result;
+    }
+
+    private List<MemberAgeRankDto> aboveTeamAverageAgeByWindow(MemberSearchCondition condition) {
+        StringBuilder sql = new StringBuilder("select t.id, t.username, t.age, t.team_id, t.team_age_avg, t.team_age_rank from (")
+                .append("select m.id, m.username, m.age, m.team_id,")
+                .append(" avg(cast(m.age as double)) over (partition by m.team_id) team_age_avg,")
+                .append(" rank() over (partition by m.team_id order by m.age desc) team_age_rank")
+                .append(" from member m where m.team_id is not null");
+        List<Object> args = new ArrayList<>();
+        if (!MemberSqlWhere.append(sql, args, condition, teamNameDictionary, "m")) {
+            return Collections.emptyList();
+        }
+        sql.append(") t where t.age > t.team_age_avg order by t.team_id, t.age desc, t.id");
+
+        return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> new MemberAgeRankDto(
+                resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getInt(3),
+                resultSet.getLong(4),
+                resultSet.getDouble(5),
+                resultSet.getLong(6)), args.toArray());
+    }
+
+    //윈도우 함수가 없는 DB 용. 평균은 상관 서브쿼리(select 와 where 에서 한번씩), 순위는 "나보다 나이 많은 같은 팀 회원 수 + 1"
+    private List<MemberAgeRankDto> aboveTeamAverageAgeByCorrelated(MemberSearchCondition condition) {
+        QMember teamMember = new QMember("teamMember");
+        JPQLQuery<Double> teamAgeAvg = JPAExpressions
+                .select(teamMember.age.castToNum(Double.class).avg())
+                .from(teamMember)
+                .where(
+                        teamMember.team.id.eq(member.team.id),
+                        conditions(teamMember, condition)
+                );
+        QMember older = new QMember("older");
+        JPQLQuery<Long> olderCount = JPAExpressions
+                .select(older.count())
+                .from(older)
+                .where(
+                        older.team.id.eq(member.team.id),
+                        conditions(older, condition),
+                        older.age.gt(member.age)
+                );
+
+        //서브쿼리가 조건마다 달라서 프로젝션을 호출마다 만든다. (생성자 바인딩은 DirectProjection 이 캐시한다)
+        return readOnly(queryFactory
+                .select(DirectProjection.of(MemberAgeRankDto.class,
+                        member.id, member.username, member.age, member.team.id, teamAgeAvg,
+                        Expressions.asNumber(olderCount).add(1L)))
+                .from(member)
+                .where(
+                        member.team.id.isNotNull(),
+                        conditions(member, condition),
+                        member.age.castToNum(Double.class).gt(teamAgeAvg)
+                )
+                .orderBy(member.team.id.asc(), member.age.desc(), member.id.asc()))
+                .fetch();
+    }
+
+    /*
+        팀별로 sort 순서 상위 n 명. 팀이 없는 회원은 제외하고, 결과는 팀 id 순 + 팀 안에서 sort 순이다.
+        sort 는 memberId(id) / username / age 만 가능하고, 같은 값은 memberId 순으로 순위를 정한다.(정렬이 없으면 나이 많은 순)
+
+        윈도우 함수를 쓸 수 있으면 row_number() over (partition by team_id ...) 로 한번에 자르고(native SQL, from 절 서브쿼리),
+        아니면 "나보다 앞선 같은 팀 회원 수 < n" 상관 서브쿼리로 같은 결과를 만든다.
+    */
+    public List<MemberTeamDto> topNPerTeam(MemberSearchCondition condition, int n, Sort sort) {
+        if (n < 1 || n > MAX_TOP_N) {
+            throw new IllegalArgumentException("n must be between 1 and " + MAX_TOP_N + ": " + n);
+        }
+        List<SortKey> keys = sortKeys(sort);
+
+        List<MemberTeamDto> result = useWindowFunctions()
+                ? topNPerTeamByWindow(condition, n, keys)
+                : topNPerTeamByCorrelatedCount(condition, n, keys);
+        for (MemberTeamDto dto : result) {
+            dto.setTeamName(teamNameDictionary.teamName(dto.getTeamId()));
+        }
+        return result;
+    }
+
+    private List<MemberTeamDto> topNPerTeamByWindow(MemberSearchCondition condition, int n, List<SortKey> keys) {
+        StringBuilder orderBy = new StringBuilder();
+        for (SortKey key : keys) {
+            orderBy.append(orderBy.length() == 0 ? "" : ", ").append("m.").append(key.column.sqlColumn)
+                    .append(key.descending ? " desc" : "");
+        }
+
+        StringBuilder sql = new StringBuilder("select t.id, t.username, t.age, t.team_id from (")
+                .append("select m.id, m.username, m.age, m.team_id, row_number() over (partition by m.team_id order by ")
+                .append(orderBy)
+                .append(") rn from member m where m.team_id is not null");
+        List<Object> args = new ArrayList<>();
+        if (!MemberSqlWhere.append(sql, args, condition, teamNameDictionary, "m")) {
+            return Collections.emptyList();
+        }
+        sql.append(") t where t.rn <= ? order by t.team_id, t.rn");
+        args.add(n);
+
+        return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> new MemberTeamDto(
+                resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getInt(3),
+                resultSet.getLong(4)), args.toArray());
+    }
+
+    private List<MemberTeamDto> topNPerTeamByCorrelatedCount(MemberSearchCondition condition, int n, List<SortKey> keys) {
+        QMember ahead = new QMember("ahead");
+        JPQLQuery<Long> aheadCount = JPAExpressions
+                .select(ahead.count())
+                .from(ahead)
+                .where(
+                        ahead.team.id.eq(member.team.id),
+                        conditions(ahead, condition),
+                        before(ahead, member, keys)
+                );
+
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        orders.add(member.team.id.asc());
+        for (SortKey key : keys) {
+            ComparableExpressionBase<?> path = key.column.path(member);
+            orders.add(key.descending ? path.desc() : path.asc());
+        }
+
+        return readOnly(queryFactory
+                .select(MEMBER_TEAM_DTO)
+                .from(member)
+                .where(
+                        member.team.id.isNotNull(),
+                        conditions(member, condition),
+                        Expressions.asNumber(aheadCount).lt((long) n)
+                )
+                .orderBy(orders.toArray(new OrderSpecifier[0])))
+                .fetch();
+    }
+
+    //ahead 가 정렬 순서상 target 보다 앞이다. (k1 < t1) or (k1 = t1 and ((k2 < t2) or ...))
+    private static Predicate before(QMember ahead, QMember target, List<SortKey> keys) {
+        Predicate result = null;
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            SortKey key = keys.get(i);
+            ComparableExpressionBase<?> aheadPath = key.column.path(ahead);
+            ComparableExpressionBase<?> targetPath = key.column.path(target);
+            BooleanExpression precedes = Expressions.predicate(key.descending ? Ops.GT : Ops.LT, aheadPath, targetPath);
+            result = result == null
+                    ? precedes
+                    : precedes.or(Expressions.predicate(Ops.EQ, aheadPath, targetPath).and(result));
+        }
+        return result;
+    }
+
+    //정렬 키 + 동순위를 가르는 memberId
+    private static List<SortKey> sortKeys(Sort sort) {
+        List<SortKey> keys = new ArrayList<>();
+        boolean hasId = false;
+        for (Sort.Order order : sort) {
+            SortColumn column = SortColumn.of(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            keys.add(new SortKey(column, order.isDescending()));
+            hasId |= column == SortColumn.MEMBER_ID;
+        }
+        if (keys.isEmpty()) {
+            keys.add(new SortKey(SortColumn.AGE, true));
+        }
+        if (!hasId) {
+            keys.add(new SortKey(SortColumn.MEMBER_ID, false));
+        }
+        return keys;
+    }
+
+    private boolean useWindowFunctions() {
+        if (!"auto".equals(topNStrategy)) {
+            return "window".equals(topNStrategy);
+        }
+        Boolean supported = windowFunctions;
+        if (supported == null) {
+            supported = probeWindowFunctions();
+            windowFunctions = supported;
+        }
+        return supported;
+    }
+
+    //현재 트랜잭션과 별도의 커넥션으로 확인한다. (실패한 문장이 트랜잭션을 망가뜨리는 DB 가 있다.)
+    private boolean probeWindowFunctions() {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeQuery("select row_number() over (order by m.id) from member m where 1 = 0").close();
+            return true;
+        } catch (SQLException e) {
+            log.info("Window functions are not supported, analytics queries use correlated subqueries: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private BooleanExpression conditions(QMember m, MemberSearchCondition condition) {
+        return Expressions.allOf(
+                usernameEq(m, condition.getUsername()),
+                teamNameEq(m, condition.getTeamName()),
+                usernameIn(m.username, condition.getUsernames()),
+                teamNameIn(m.team.id, condition.getTeamNames(), teamNameDictionary),
+                ageGoe(m, condition.getAgeGoe()),
+                ageLoe(m, condition.getAgeLoe()));
+    }
+
+    private BooleanExpression usernameEq(QMember m, String username) {
+        return StringUtils.hasText(username) ? m.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(QMember m, String teamName) {
+        return StringUtils.hasText(teamName) ? m.team.id.in(teamNameDictionary.teamIds(teamName)) : null;
+    }
+
+    private BooleanExpression ageGoe(QMember m, Integer ageGoe) {
+        return ageGoe != null ? m.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(QMember m, Integer ageLoe) {
+        return ageLoe != null ? m.age.loe(ageLoe) : null;
+    }
+
+    //top-N 에 쓸 수 있는 정렬 컬럼
+    private enum SortColumn {
+        MEMBER_ID("id"),
+        USERNAME("username"),
+        AGE("age");
+
+        private final String sqlColumn;
+
+        SortColumn(String sqlColumn) {
+            this.sqlColumn = sqlColumn;
+        }
+
+        private ComparableExpressionBase<?> path(QMember m) {
+            switch (this) {
+                case MEMBER_ID:
+                    return m.id;
+                case USERNAME:
+                    return m.username;
+                default:
+                    return m.age;
+            }
+        }
+
+        private static SortColumn of(String property) {
+            switch (property) {
+                case "id":
+                case "memberId":
+                    return MEMBER_ID;
+                case "username":
+                    return USERNAME;
+                case "age":
+                    return AGE;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private static final class SortKey {
+        private final SortColumn column;
+        private final boolean descending;
+
+        private SortKey(SortColumn column, boolean descending) {
+            this.column = column;
+            this.descending = descending;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.IndexAdvisor;
+import study.querydsl.repository.support.MemberSqlWhere;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    대량 검색 결과를 MemberTeamColumns(컬럼 배열)로 JDBC 결과에서 바로 채운다.
+    엔티티 / DTO 를 거치지 않으므로 결과 크기가 큰 검색(수십만 건 이상)용.
+    조건은 search 와 같다.(MemberSqlWhere)
+
+    값 목록 조건(usernames / teamNames)이 큰 JPA 검색도 여기서 처리한다.(search / searchPage)
+    MemberSqlWhere 는 큰 목록을 table 함수 조인 하나로 만들지만, JPQL 은 in 절을 or 로 늘릴 수밖에 없다.
+*/
+@Repository
+@Transactional(readOnly = true)
+public class MemberJdbcRepository {
+
+    private static final int FETCH_SIZE = 1_000;
+
+    //searchBatch 한번에 받는 최대 조건 수 (SQL 길이 / 파라미터 수 제한)
+    public static final int MAX_BATCH_CONDITIONS = 100;
+
+    /*
+        searchBatch 조건 하나의 최대 결과 수. 화면 위젯용이라 결과가 작은 조건을 묶는 API 이고,
+        조건 없음 / 넓은 범위 조건이 한번에 최대 MAX_BATCH_CONDITIONS 배로 테이블을 읽지 않도록
+        조건마다 MAX_BATCH_ROWS + 1 건까지만 읽고, 넘으면 요청을 거절한다.(큰 결과는 /v2, /v3 페이지 조회로)
+    */
+    public static final int MAX_BATCH_ROWS = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TeamNameDictionary teamNameDictionary;
+    private final IndexAdvisor indexAdvisor;
+
+    public MemberJdbcRepository(JdbcTemplate jdbcTemplate, TeamNameDictionary teamNameDictionary, IndexAdvisor indexAdvisor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.teamNameDictionary = teamNameDictionary;
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    /*
+        JPA search 와 같은 결과. (memberId 순)
+        SQL 은 영속성 컨텍스트를 보지 않으므로 쓰기 트랜잭션 안에서는 호출하는 쪽이 먼저 flush 한다.
+    */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        StringBuilder sql = new StringBuilder("select m.id, m.username, m.age, m.team_id from member m where 1=1");
+        List<Object> args = new ArrayList<>();
+        if (!MemberSqlWhere.append(sql, args, condition, teamNameDictionary, "m")) {
+            return new ArrayList<>();
+        }
+        sql.append(" order by m.id");
+        return jdbcTemplate.query(sql.toString(), memberTeamDtoMapper(), args.toArray());
+    }
+
+    /*
+        JPA searchPage* 와 같은 페이지. pageable 의 정렬 프로퍼티는 응답 필드 이름(memberId, username, age, teamId)이고
+        마지막에 memberId 를 붙인다. 컨텐츠로 total 을 알 수 있으면 count 를 생략한다.
+    */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        StringBuilder where = new StringBuilder(" from member m where 1=1");
+        List<Object> args = new ArrayList<>();
+        if (!MemberSqlWhere.append(where, args, condition, teamNameDictionary, "m")) {
+            return PageableExecutionUtils.getPage(new ArrayList<>(), pageable, () -> 0L);
+        }
+
+        StringBuilder sql = new StringBuilder("select m.id, m.username, m.age, m.team_id").append(where).append(" order by ");
+        for (Sort.Order order : pageable.getSort()) {
+            sql.append(sortColumn(order.getProperty())).append(order.isDescending() ? " desc, " : ", ");
+        }
+        sql.append("m.id limit ? offset ?");
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+
+        List<MemberTeamDto> content = jdbcTemplate.query(sql.toString(), memberTeamDtoMapper(), pageArgs.toArray());
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> jdbcTemplate.queryForObject("select count(*)" + where, Long.class, args.toArray()));
+    }
+
+    public MemberTeamColumns searchColumns(MemberSearchCondition condition) {
+        indexAdvisor.record(condition);
+
+        StringBuilder sql = new StringBuilder("select m.id, m.username, m.age, m.team_id from member m where 1=1");
+        List<Object> args = new ArrayList<>();
+
+        if (!MemberSqlWhere.append(sql, args, condition, teamNameDictionary, "m")) {
+            return MemberTeamColumns.builder(0).build();
+        }
+        sql.append(" order by m.id");
+
+        MemberTeamColumns.Builder builder = MemberTeamColumns.builder(FETCH_SIZE);
+        jdbcTemplate.query(connection -> {
+            //드라이버가 결과 전체를 한번에 메모리로 올리지 않도록 fetch size 를 준다.
+            PreparedStatement statement = connection.prepareStatement(sql.toString());
+            statement.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            long teamId = resultSet.getLong(4);
+            boolean hasTeam = !resultSet.wasNull();
+            builder.add(
+                    resultSet.getLong(1),
+                    resultSet.getString(2),
+                    resultSet.getInt(3),
+                    hasTeam ? teamId : MemberTeamColumns.NO_TEAM,
+                    hasTeam ? teamNameDictionary.teamName(teamId) : null);
+        });
+        return builder.build();
+    }
+
+    /*
+        여러 조건의 search 를 한번의 조회로 처리한다. 결과는 conditions 순서대로 조건별 목록이다.
+        조건마다 select 를 만들고 조건 번호를 첫 컬럼으로 붙여 union all 로 묶는다.
+        (select 0, m.id, ... from member m where ... order by m.id limit 1001)
+        union all (select 1, m.id, ... from member m where ... order by m.id limit 1001) order by 1, 2
+
+        조건 하나의 결과가 MAX_BATCH_ROWS 를 넘으면 IllegalArgumentException.
+
+        같은 조건은 한번만 조회하고, 결과가 없는 것이 확실한 조건(없는 팀 이름)은 조회하지 않는다.
+    */
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+        if (conditions.size() > MAX_BATCH_CONDITIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_CONDITIONS + " conditions per batch: " + conditions.size());
+        }
+
+        //조건 -> 조회 번호 (중복 조건 제거)
+        Map<MemberSearchCondition, Integer> queryIndexes = new LinkedHashMap<>();
+        int[] queryIndexByCondition = new int[conditions.size()];
+        StringBuilder sql = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            MemberSearchCondition condition = conditions.get(i);
+            Integer queryIndex = queryIndexes.get(condition);
+            if (queryIndex == null) {
+                indexAdvisor.record(condition);
+                queryIndex = queryIndexes.size();
+
+                StringBuilder select = new StringBuilder("(select ").append(queryIndex)
+                        .append(", m.id, m.username, m.age, m.team_id from member m where 1=1");
+                List<Object> selectArgs = new ArrayList<>();
+                if (MemberSqlWhere.append(select, selectArgs, condition, teamNameDictionary, "m")) {
+                    select.append(" order by m.id limit ?)");
+                    selectArgs.add(MAX_BATCH_ROWS + 1);
+                } else {
+                    //조회 번호만 잡아두고 select 는 만들지 않는다. (결과 없음)
+                    select = null;
+                }
+                queryIndexes.put(condition, queryIndex);
+                if (select != null) {
+                    sql.append(sql.length() == 0 ? "" : " union all ").append(select);
+                    args.addAll(selectArgs);
+                }
+            }
+            queryIndexByCondition[i] = queryIndex;
+        }
+
+        List<List<MemberTeamDto>> results = new ArrayList<>(queryIndexes.size());
+        for (int i = 0; i < queryIndexes.size(); i++) {
+            results.add(new ArrayList<>());
+        }
+        if (sql.length() > 0) {
+            sql.append(" order by 1, 2");
+            List<MemberSearchCondition> queried = new ArrayList<>(queryIndexes.keySet());
+            jdbcTemplate.query(sql.toString(), (RowCallbackHandler) resultSet -> {
+                int queryIndex = resultSet.getInt(1);
+                List<MemberTeamDto> result = results.get(queryIndex);
+                if (result.size() == MAX_BATCH_ROWS) {
+                    throw new IllegalArgumentException("at most " + MAX_BATCH_ROWS
+                            + " members per batch condition, use a paged search instead: " + queried.get(queryIndex));
+                }
+                result.add(memberTeamDto(resultSet, 2));
+            }, args.toArray());
+        }
+
+        //같은 조건은 같은 목록을 공유하므로 수정할 수 없게 돌려준다.
+        List<List<MemberTeamDto>> resultByCondition = new ArrayList<>(conditions.size());
+        for (int queryIndex : queryIndexByCondition) {
+            resultByCondition.add(Collections.unmodifiableList(results.get(queryIndex)));
+        }
+        return resultByCondition;
+    }
+
+    private RowMapper<MemberTeamDto> memberTeamDtoMapper() {
+        return (resultSet, rowNum) -> memberTeamDto(resultSet, 1);
+    }
+
+    //column 부터 id, username, age, team_id
+    private MemberTeamDto memberTeamDto(ResultSet resultSet, int column) throws SQLException {
+        long teamId = resultSet.getLong(column + 3);
+        Long nullableTeamId = resultSet.wasNull() ? null : teamId;
+        return new MemberTeamDto(
+                resultSet.getLong(column),
+                resultSet.getString(column + 1),
+                resultSet.getInt(column + 2),
+                nullableTeamId,
+                teamNameDictionary.teamName(nullableTeamId));
+    }
+
+    private static String sortColumn(String property) {
+        switch (property) {
+            case "id":
+            case "memberId":
+                return "m.id";
+            case "username":
+                return "m.username";
+            case "age":
+                return "m.age";
+            case "teamId":
+                return "m.team_id";
+            default:
+                throw new IllegalArgumentException("unsupported sort property: " + property);
+        }
+    }
+}
@@ -3,29 +3,69 @@ package study.querydsl.repository;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.index.MemberColumnarIndex;
+import study.querydsl.index.MemberNearCache;
+import study.querydsl.repository.support.DirectProjection;
+import study.querydsl.repository.support.IndexAdvisor;
+import study.querydsl.repository.support.MemberIdBatchLoader;
+import study.querydsl.repository.support.TeamNameDictionary;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.MultiValueFilters.large;
+import static study.querydsl.repository.support.MultiValueFilters.teamNameIn;
+import static study.querydsl.repository.support.MultiValueFilters.usernameIn;
+import static study.querydsl.repository.support.ReadOnlyQueries.inReadWriteTransaction;
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
 
 @Repository
 public class MemberJpaRepository {
 
+    //행마다 리플렉션 없이 생성자를 직접 호출한다. (teamName 은 조회 후 사전으로 채운다)
+    private static final DirectProjection<MemberTeamDto> MEMBER_TEAM_DTO = DirectProjection.of(MemberTeamDto.class,
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            member.team.id.as("teamId"));
+
     private final EntityManager entityManager;
     private final JPAQueryFactory queryFactory;
-
-    public MemberJpaRepository(EntityManager entityManager) {
+    private final TeamNameDictionary teamNameDictionary;
+    private final IndexAdvisor indexAdvisor;
+    private final MemberIdBatchLoader memberIdBatchLoader;
+    //값 목록 조건이 큰 검색 (MultiValueFilters.large)
+    private final MemberJdbcRepository memberJdbcRepository;
+    //app.columnar-index.enabled=false 이면 없다.
+    private final ObjectProvider<MemberColumnarIndex> columnarIndex;
+    //app.near-cache.enabled=false 이면 없다.
+    private final ObjectProvider<MemberNearCache> nearCache;
+    //app.search.backend=sql 일때만 있다.
+    private final ObjectProvider<MemberSqlRepository> sqlRepository;
+
+    public MemberJpaRepository(EntityManager entityManager, TeamNameDictionary teamNameDictionary, IndexAdvisor indexAdvisor,
+                               MemberIdBatchLoader memberIdBatchLoader, MemberJdbcRepository memberJdbcRepository,
+                               ObjectProvider<MemberColumnarIndex> columnarIndex, ObjectProvider<MemberNearCache> nearCache,
+                               ObjectProvider<MemberSqlRepository> sqlRepository) {
         this.entityManager = entityManager;
         this.queryFactory = new JPAQueryFactory(entityManager);
+        this.teamNameDictionary = teamNameDictionary;
+        this.indexAdvisor = indexAdvisor;
+        this.memberIdBatchLoader = memberIdBatchLoader;
+        this.memberJdbcRepository = memberJdbcRepository;
+        this.columnarIndex = columnarIndex;
+        this.nearCache = nearCache;
+        this.sqlRepository = sqlRepository;
     }
 
     public void save(Member member) {
@@ -37,6 +77,30 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    //id 로 DTO 조회. 자주 조회되는 회원은 near cache 에서 답한다.
+    @Transactional(readOnly = true)
+    public Optional<MemberTeamDto> findDtoById(Long id) {
+        MemberNearCache cache = nearCache.getIfAvailable();
+        if (cache != null && cache.canServe()) {
+            return cache.findById(id);
+        }
+        MemberTeamDto dto = readOnly(queryFactory
+                .select(MEMBER_TEAM_DTO)
+                .from(member)
+                .where(member.id.eq(id)))
+                .fetchOne();
+        if (dto != null) {
+            dto.setTeamName(teamNameDictionary.teamName(dto.getTeamId()));
+        }
+        return Optional.ofNullable(dto);
+    }
+
+    //findById 반복 대신 : 영속성 컨텍스트 확인 후 나머지를 in 절로 한번에 (요청 순서, team fetch join)
+    @Transactional(readOnly = true)
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return memberIdBatchLoader.findAllByIds(ids);
+    }
+
     public List<Member> findAll() {
         return entityManager.createQuery(
                 "select m from Member m",
@@ -66,7 +130,9 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+        indexAdvisor.record(condition);
         BooleanBuilder builder = new BooleanBuilder();
 
         if(StringUtils.hasText(condition.getUsername())){
@@ -74,9 +140,12 @@ public class MemberJpaRepository {
         }
 
         if(StringUtils.hasText(condition.getTeamName())){
-            builder.and(team.name.eq(condition.getTeamName()));
+            builder.and(member.team.id.in(teamNameDictionary.teamIds(condition.getTeamName())));
         }
 
+        builder.and(usernameIn(member.username, condition.getUsernames()));
+        builder.and(teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary));
+
         if(condition.getAgeGoe() != null){
             builder.and(member.age.goe(condition.getAgeGoe()));
         }
@@ -88,39 +157,50 @@ public class MemberJpaRepository {
         //쿼리 실행할때 조심해야 할 점
         //where 조건이 전부 null일 경우 전체 데이터 풀조회하기 때문에
         //데이터 건이 많아진 경우 부하가 엄청 발생함. 가급적 페이징 쿼리 식으로 수정하는 것을 권장.
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        List<MemberTeamDto> content = readOnly(queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(builder)
+                .where(builder))
                 .fetch();
+        return teamNameDictionary.fillTeamNames(content);
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition){
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        indexAdvisor.record(condition);
+        //커밋된 데이터만 보면 되는 조회는 메모리 컬럼 인덱스에서 처리한다.
+        MemberColumnarIndex index = columnarIndex.getIfAvailable();
+        if (index != null && index.canServe(condition)) {
+            return index.search(condition);
+        }
+        //JPA 를 거치지 않고 SQL 로 바로 조회한다.
+        MemberSqlRepository sql = sqlRepository.getIfAvailable();
+        if (sql != null && sql.canServe()) {
+            return sql.search(condition);
+        }
+        //값 목록이 in 절 하나를 넘으면 목록을 table 함수로 조인하는 JDBC 조회로 (JPQL 은 in 절을 or 로 늘려야 한다)
+        if (large(condition)) {
+            if (inReadWriteTransaction()) {
+                entityManager.flush();
+            }
+            return memberJdbcRepository.search(condition);
+        }
+        List<MemberTeamDto> content = readOnly(queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
-                .leftJoin(member.team, team)
                 .where(
                         //재활용이 가능한 컨디션 조건들 생성.
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                //메모리 컬럼 인덱스 결과와 같은 순서
+                .orderBy(member.id.asc()))
                 .fetch();
+        return teamNameDictionary.fillTeamNames(content);
     }
 
     //condition을 조립해서 사용하는 경우.
@@ -132,8 +212,9 @@ public class MemberJpaRepository {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
 
+    //팀 이름을 사전에서 팀 id 로 바꿔서 team 조인 없이 FK 로 필터링.
     private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+        return StringUtils.hasText(teamName) ? member.team.id.in(teamNameDictionary.teamIds(teamName)) : null;
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
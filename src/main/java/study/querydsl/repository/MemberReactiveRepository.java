@@ -0,0 +1,80 @@
+package study.querydsl.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.IndexAdvisor;
+import study.querydsl.repository.support.MemberSqlWhere;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    search 를 R2DBC 로 조회해서 Flux 로 흘려 보낸다. 조건은 search 와 같다.(MemberSqlWhere)
+    행은 구독자가 요청(request(n))한 만큼만 읽으므로 느린 구독자가 결과 전체를 메모리에 쌓지 않는다.
+
+    teamName 은 사전(메모리)에서 채운다. 사전에 없는 팀 id 이면 JPA 로 다시 로딩(블로킹)하므로
+    R2DBC 스레드(이벤트 루프)가 아니라 boundedElastic 에서 채운다. publishOn 이 앞당겨 읽는 행은 prefetch 개까지다.
+*/
+@Repository
+public class MemberReactiveRepository {
+
+    private static final int TEAM_NAME_PREFETCH = 32;
+
+    private final DatabaseClient databaseClient;
+    private final TeamNameDictionary teamNameDictionary;
+    private final IndexAdvisor indexAdvisor;
+
+    public MemberReactiveRepository(DatabaseClient databaseClient, TeamNameDictionary teamNameDictionary, IndexAdvisor indexAdvisor) {
+        this.databaseClient = databaseClient;
+        this.teamNameDictionary = teamNameDictionary;
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+        indexAdvisor.record(condition);
+
+        StringBuilder sql = new StringBuilder("select m.id, m.username, m.age, m.team_id from member m where 1=1");
+        List<Object> args = new ArrayList<>();
+        if (!MemberSqlWhere.append(sql, args, condition, teamNameDictionary, "m")) {
+            return Flux.empty();
+        }
+        sql.append(" order by m.id");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(bindMarkers(sql));
+        for (int i = 0; i < args.size(); i++) {
+            spec = spec.bind(i, args.get(i));
+        }
+        return spec
+                .map(row -> new MemberTeamDto(
+                        row.get(0, Long.class),
+                        row.get(1, String.class),
+                        row.get(2, Integer.class),
+                        row.get(3, Long.class)))
+                .all()
+                .publishOn(Schedulers.boundedElastic(), TEAM_NAME_PREFETCH)
+                .map(dto -> {
+                    dto.setTeamName(teamNameDictionary.teamName(dto.getTeamId()));
+                    return dto;
+                });
+    }
+
+    //MemberSqlWhere 의 ? 를 r2dbc-h2 바인드 마커($1, $2 ...)로 바꾼다. 값은 모두 파라미터로 바인딩하므로 sql 의 ? 는 바인드 마커뿐이다.
+    static String bindMarkers(CharSequence sql) {
+        StringBuilder converted = new StringBuilder(sql.length() + 16);
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                converted.append('$').append(++index);
+            } else {
+                converted.append(c);
+            }
+        }
+        return converted.toString();
+    }
+}
@@ -4,11 +4,24 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamField;
+import study.querydsl.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    //요청한 필드만 조회 (fields 파라미터)
+    List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberTeamField> fields);
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberTeamField> fields, Pageable pageable);
+    //id 로 DTO 조회 (near cache)
+    Optional<MemberTeamDto> findDtoById(Long id);
+    //id 목록으로 한번에 조회 (요청 순서, team fetch join)
+    List<Member> findAllByIds(Collection<Long> ids);
 }
@@ -1,106 +1,187 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.MemberTeamField;
 import study.querydsl.entity.Member;
+import study.querydsl.index.MemberBitmapIndex;
+import study.querydsl.index.MemberColumnarIndex;
+import study.querydsl.repository.support.DirectProjection;
+import study.querydsl.repository.support.IndexAdvisor;
+import study.querydsl.repository.support.MemberFieldProjection;
+import study.querydsl.repository.support.MemberIdBatchLoader;
+import study.querydsl.repository.support.TeamNameDictionary;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 
 import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.MultiValueFilters.large;
+import static study.querydsl.repository.support.MultiValueFilters.teamNameIn;
+import static study.querydsl.repository.support.MultiValueFilters.usernameIn;
+import static study.querydsl.repository.support.ReadOnlyQueries.inReadWriteTransaction;
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
 
+//조회 전용 트랜잭션 : 엔티티 스냅샷 생성과 쿼리 전 flush를 생략한다.
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    //행마다 리플렉션 없이 생성자를 직접 호출한다. (teamName 은 조회 후 사전으로 채운다)
+    private static final DirectProjection<MemberTeamDto> MEMBER_TEAM_DTO = DirectProjection.of(MemberTeamDto.class,
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            member.team.id.as("teamId"));
+
+    private final EntityManager entityManager;
     private final JPAQueryFactory queryFactory;
+    private final TeamNameDictionary teamNameDictionary;
+    private final IndexAdvisor indexAdvisor;
+    private final MemberIdBatchLoader memberIdBatchLoader;
+    private final MemberJpaRepository memberJpaRepository;
+    //값 목록 조건이 큰 검색 (MultiValueFilters.large)
+    private final MemberJdbcRepository memberJdbcRepository;
+    //app.columnar-index.enabled=false 이면 없다.
+    private final ObjectProvider<MemberColumnarIndex> columnarIndex;
+    //app.bitmap-count.enabled=false 이면 없다.
+    private final ObjectProvider<MemberBitmapIndex> bitmapIndex;
+    //app.search.backend=sql 일때만 있다.
+    private final ObjectProvider<MemberSqlRepository> sqlRepository;
 
-    public MemberRepositoryImpl(EntityManager entityManager) {
+    public MemberRepositoryImpl(EntityManager entityManager, TeamNameDictionary teamNameDictionary, IndexAdvisor indexAdvisor,
+                                MemberIdBatchLoader memberIdBatchLoader, MemberJpaRepository memberJpaRepository,
+                                MemberJdbcRepository memberJdbcRepository, ObjectProvider<MemberColumnarIndex> columnarIndex,
+                                ObjectProvider<MemberBitmapIndex> bitmapIndex, ObjectProvider<MemberSqlRepository> sqlRepository) {
+        this.entityManager = entityManager;
         this.queryFactory = new JPAQueryFactory(entityManager);
+        this.teamNameDictionary = teamNameDictionary;
+        this.indexAdvisor = indexAdvisor;
+        this.memberIdBatchLoader = memberIdBatchLoader;
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberJdbcRepository = memberJdbcRepository;
+        this.columnarIndex = columnarIndex;
+        this.bitmapIndex = bitmapIndex;
+        this.sqlRepository = sqlRepository;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        indexAdvisor.record(condition);
+        //커밋된 데이터만 보면 되는 조회는 메모리 컬럼 인덱스에서 처리한다.
+        MemberColumnarIndex index = columnarIndex.getIfAvailable();
+        if (index != null && index.canServe(condition)) {
+            return index.search(condition);
+        }
+        //JPA 를 거치지 않고 SQL 로 바로 조회한다.
+        MemberSqlRepository sql = sqlRepository.getIfAvailable();
+        if (sql != null && sql.canServe()) {
+            return sql.search(condition);
+        }
+        if (large(condition)) {
+            return largeLists().search(condition);
+        }
+        List<MemberTeamDto> content = readOnly(queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
-                .leftJoin(member.team, team)
                 .where(
                         //재활용이 가능한 컨디션 조건들 생성.
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                //메모리 컬럼 인덱스 결과와 같은 순서
+                .orderBy(member.id.asc()))
                 .fetch();
+        return teamNameDictionary.fillTeamNames(content);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        indexAdvisor.record(condition, pageable.getSort());
+        if (large(condition)) {
+            return largeLists().searchPage(condition, unsorted(pageable));
+        }
+        JPAQuery<MemberTeamDto> query = readOnly(queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
-                .leftJoin(member.team, team)
                 .where(
                         //재활용이 가능한 컨디션 조건들 생성.
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
                 .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();
-        List<MemberTeamDto> content = results.getResults();
+                .limit(pageable.getPageSize()));
+
+        //비트맵 인덱스로 total 을 구할 수 있으면 count 쿼리를 생략한다.
+        OptionalLong bitmapTotal = bitmapCount(condition);
+        if (bitmapTotal.isPresent()) {
+            List<MemberTeamDto> content = teamNameDictionary.fillTeamNames(query.fetch());
+            return new PageImpl<>(content, pageable, bitmapTotal.getAsLong());
+        }
+
+        QueryResults<MemberTeamDto> results = query.fetchResults();
+        List<MemberTeamDto> content = teamNameDictionary.fillTeamNames(results.getResults());
         long total = results.getTotal();
         return new PageImpl<>(content, pageable, total);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        indexAdvisor.record(condition, pageable.getSort());
+        MemberSqlRepository sql = sqlRepository.getIfAvailable();
+        if (sql != null && sql.canServe()) {
+            return sql.searchPageComplex(condition, pageable);
+        }
+        if (large(condition)) {
+            return largeLists().searchPage(condition, unsorted(pageable));
+        }
         //데이터 건이 천만건 이상인 헤비한 상태일때,
         //전체 카운트를 조금더 가볍게 구성할 수 있는 경우, 효율성을 위해 별도의 쿼리를 짜는게 유리하다.
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        List<MemberTeamDto> content = readOnly(queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
-                .leftJoin(member.team, team)
                 .where(
                         //재활용이 가능한 컨디션 조건들 생성.
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
                 .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .limit(pageable.getPageSize()))
                 .fetch();
+        teamNameDictionary.fillTeamNames(content);
 
         /*
         //페이징 최적화 이전.
@@ -112,23 +193,26 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         //재활용이 가능한 컨디션 조건들 생성.
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
                 .fetchCount();
         return new PageImpl<>(content,pageable,total);
          */
-        JPAQuery<Member> countQuery = queryFactory
+        JPAQuery<Member> countQuery = readOnly(queryFactory
                 .select(member)
                 .from(member)
-                .leftJoin(member.team, team)
                 .where(
                         //재활용이 가능한 컨디션 조건들 생성.
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
-                );
+                ));
         /*
             페이징 최적화
             카운트 쿼리가 생략 가능한 경우 생략 처리를 spring에서 지원.
@@ -137,16 +221,147 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
             1. 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈 보다 작을때
             2. 마지막 페이지 일때(offset + 컨텐츠 사이즈를 더해서 전체 사이즈를 구함.)
         */
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+        //비트맵 인덱스가 답할 수 없는 조건(username)이거나 쓰기 트랜잭션 안이면 SQL count.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> bitmapCount(condition).orElseGet(countQuery::fetchCount));
+
+    }
+
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberTeamField> fields) {
+        indexAdvisor.record(condition);
+        MemberFieldProjection projection = new MemberFieldProjection(fields, teamNameDictionary);
+        if (large(condition)) {
+            return projection.fromDtos(largeLists().search(condition));
+        }
+        List<Tuple> tuples = readOnly(queryFactory
+                .select(projection.expressions())
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                //search(v1) 와 같은 순서
+                .orderBy(member.id.asc()))
+                .fetch();
+        return projection.toMaps(tuples);
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberTeamField> fields, Pageable pageable) {
+        indexAdvisor.record(condition, pageable.getSort());
+        MemberFieldProjection projection = new MemberFieldProjection(fields, teamNameDictionary);
+        if (large(condition)) {
+            Page<MemberTeamDto> page = largeLists().searchPage(condition, pageable);
+            return new PageImpl<>(projection.fromDtos(page.getContent()), pageable, page.getTotalElements());
+        }
+        List<Tuple> tuples = readOnly(queryFactory
+                .select(projection.expressions())
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(orderBy(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()))
+                .fetch();
+
+        JPAQuery<Member> countQuery = readOnly(queryFactory
+                .select(member)
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ));
+        return PageableExecutionUtils.getPage(projection.toMaps(tuples), pageable,
+                () -> bitmapCount(condition).orElseGet(countQuery::fetchCount));
+    }
+
+    //near cache 경로는 MemberJpaRepository 에 한곳만 둔다.
+    @Override
+    public Optional<MemberTeamDto> findDtoById(Long id) {
+        return memberJpaRepository.findDtoById(id);
+    }
+
+    @Override
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return memberIdBatchLoader.findAllByIds(ids);
+    }
+
+    /*
+        ?sort= 의 프로퍼티는 응답 필드 이름(memberId, username, age, teamId)이다.
+        teamName 은 조회 후에 사전으로 채우므로 정렬하지 않는다. 페이지 경계가 흔들리지 않게 마지막에 id 를 붙인다.
+    */
+    private static OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = sortPath(order.getProperty());
+            if (path == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            orders.add(order.isDescending() ? path.desc() : path.asc());
+        }
+        orders.add(member.id.asc());
+        return orders.toArray(new OrderSpecifier[0]);
+    }
+
+    private static ComparableExpressionBase<?> sortPath(String property) {
+        switch (property) {
+            case "id":
+            case "memberId":
+                return member.id;
+            case "username":
+                return member.username;
+            case "age":
+                return member.age;
+            case "teamId":
+                return member.team.id;
+            default:
+                return null;
+        }
+    }
+
+    /*
+        값 목록이 in 절 하나(CHUNK_SIZE)를 넘으면 JPQL 은 in 절을 or 로 늘려야 하므로,
+        목록을 table 함수로 조인하는 JDBC 조회로 넘긴다. 쓰기 트랜잭션 안이면 JPQL 처럼 먼저 flush 한다.
+    */
+    private MemberJdbcRepository largeLists() {
+        if (inReadWriteTransaction()) {
+            entityManager.flush();
+        }
+        return memberJdbcRepository;
+    }
+
+    //searchPageSimple / searchPageComplex 는 정렬하지 않는다.
+    private static Pageable unsorted(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+    }
 
+    private OptionalLong bitmapCount(MemberSearchCondition condition) {
+        MemberBitmapIndex index = bitmapIndex.getIfAvailable();
+        return index != null ? index.count(condition) : OptionalLong.empty();
     }
 
     private BooleanExpression usernameEq(String username) {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
 
+    //팀 이름을 사전에서 팀 id 로 바꿔서 team 조인 없이 FK 로 필터링.
     private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+        return StringUtils.hasText(teamName) ? member.team.id.in(teamNameDictionary.teamIds(teamName)) : null;
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
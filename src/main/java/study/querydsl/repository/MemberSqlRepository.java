@@ -0,0 +1,156 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.index.MemberBitmapIndex;
+import study.querydsl.repository.support.DirectProjection;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static study.querydsl.repository.support.MultiValueFilters.sqlIn;
+import static study.querydsl.repository.support.ReadOnlyQueries.inReadWriteTransaction;
+import static study.querydsl.sql.SMember.member;
+
+/*
+    search / searchPageComplex 의 querydsl-sql 구현. (app.search.backend=sql)
+    결과가 평평한 MemberTeamDto 이므로 JPQL 파싱 / HQL -> SQL 변환 / Hibernate 결과 처리를 거치지 않고
+    같은 DataSource 로 SQL 을 바로 실행한다. 조건과 결과는 JPA 구현과 같다.
+
+    SQL 은 영속성 컨텍스트를 보지 않으므로(auto flush 없음) 쓰기 트랜잭션 안에서는 canServe() 가 false 이고 JPA 로 조회한다.
+*/
+@Repository
+@Transactional(readOnly = true)
+@ConditionalOnProperty(prefix = "app.search", name = "backend", havingValue = "sql")
+public class MemberSqlRepository {
+
+    private static final DirectProjection<MemberTeamDto> MEMBER_TEAM_DTO = DirectProjection.of(MemberTeamDto.class,
+            member.id,
+            member.username,
+            member.age,
+            member.teamId);
+
+    private final SQLQueryFactory queryFactory;
+    private final TeamNameDictionary teamNameDictionary;
+    //app.bitmap-count.enabled=false 이면 없다.
+    private final ObjectProvider<MemberBitmapIndex> bitmapIndex;
+
+    public MemberSqlRepository(SQLQueryFactory queryFactory, TeamNameDictionary teamNameDictionary,
+                               ObjectProvider<MemberBitmapIndex> bitmapIndex) {
+        this.queryFactory = queryFactory;
+        this.teamNameDictionary = teamNameDictionary;
+        this.bitmapIndex = bitmapIndex;
+    }
+
+    public boolean canServe() {
+        return !inReadWriteTransaction();
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (matchesNothing(condition)) {
+            return new ArrayList<>();
+        }
+        List<MemberTeamDto> content = queryFactory
+                .select(MEMBER_TEAM_DTO)
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .fetch();
+        return teamNameDictionary.fillTeamNames(content);
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        if (matchesNothing(condition)) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        List<MemberTeamDto> content = queryFactory
+                .select(MEMBER_TEAM_DTO)
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        teamNameDictionary.fillTeamNames(content);
+
+        SQLQuery<Long> countQuery = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        usernameIn(condition.getUsernames()),
+                        teamNameIn(condition.getTeamNames()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                );
+        //카운트 생략 / 비트맵 카운트는 JPA 구현과 같다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> bitmapCount(condition).orElseGet(countQuery::fetchCount));
+    }
+
+    private OptionalLong bitmapCount(MemberSearchCondition condition) {
+        MemberBitmapIndex index = bitmapIndex.getIfAvailable();
+        return index != null ? index.count(condition) : OptionalLong.empty();
+    }
+
+    //사전에 없는 팀 이름이면 조회하지 않는다.
+    private boolean matchesNothing(MemberSearchCondition condition) {
+        return (StringUtils.hasText(condition.getTeamName()) && teamNameDictionary.teamIds(condition.getTeamName()).isEmpty())
+                || (!CollectionUtils.isEmpty(condition.getTeamNames()) && teamNameDictionary.teamIds(condition.getTeamNames()).isEmpty());
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    //JDBC 경로(MemberSqlWhere)와 같은 in 절 : 패딩, 목록이 크면 table 함수 조인
+    private BooleanExpression usernameIn(List<String> usernames) {
+        return CollectionUtils.isEmpty(usernames) ? null : sqlIn(member.username, usernames, "varchar");
+    }
+
+    private BooleanExpression teamNameIn(List<String> teamNames) {
+        return CollectionUtils.isEmpty(teamNames) ? null : sqlIn(member.teamId, teamNameDictionary.teamIds(teamNames), "bigint");
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? member.teamId.in(teamNameDictionary.teamIds(teamName)) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
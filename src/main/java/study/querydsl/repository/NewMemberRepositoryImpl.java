@@ -2,6 +2,7 @@ package study.querydsl.repository;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -10,13 +11,16 @@ import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.TeamNameDictionary;
 
 import java.util.List;
 
 import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
 
 public class NewMemberRepositoryImpl extends QuerydslRepositorySupport implements NewMemberRepositoryCustom{
+
+    private TeamNameDictionary teamNameDictionary;
+
     /**
      * Creates a new {@link QuerydslRepositorySupport} instance for the given domain type.
      *
@@ -26,11 +30,15 @@ public class NewMemberRepositoryImpl extends QuerydslRepositorySupport implement
         super(domainClass);
     }
 
+    @Autowired
+    public void setTeamNameDictionary(TeamNameDictionary teamNameDictionary) {
+        this.teamNameDictionary = teamNameDictionary;
+    }
+
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
 
         List<MemberTeamDto> result = from(member)
-                .leftJoin(member.team, team)
                 .where(
                         //재활용이 가능한 컨디션 조건들 생성.
                         usernameEq(condition.getUsername()),
@@ -42,17 +50,15 @@ public class NewMemberRepositoryImpl extends QuerydslRepositorySupport implement
                         member.id.as("memberId"),
                         member.username,
                         member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
+                        member.team.id.as("teamId")
                 ))
                 .fetch();
-        return result;
+        return teamNameDictionary.fillTeamNames(result);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
         JPQLQuery<MemberTeamDto> jpqlQuery = from(member)
-                .leftJoin(member.team, team)
                 .where(
                         //재활용이 가능한 컨디션 조건들 생성.
                         usernameEq(condition.getUsername()),
@@ -64,13 +70,12 @@ public class NewMemberRepositoryImpl extends QuerydslRepositorySupport implement
                         member.id.as("memberId"),
                         member.username,
                         member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
+                        member.team.id.as("teamId")
                 ));
 
         JPQLQuery<MemberTeamDto> query = getQuerydsl().applyPagination(pageable, jpqlQuery);
 
-        return new PageImpl<>(query.fetchResults().getResults(),pageable, query.fetchCount());
+        return new PageImpl<>(teamNameDictionary.fillTeamNames(query.fetchResults().getResults()),pageable, query.fetchCount());
     }
 
     @Override
@@ -82,8 +87,9 @@ public class NewMemberRepositoryImpl extends QuerydslRepositorySupport implement
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
 
+    //팀 이름을 사전에서 팀 id 로 바꿔서 team 조인 없이 FK 로 필터링.
     private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+        return StringUtils.hasText(teamName) ? member.team.id.in(teamNameDictionary.teamIds(teamName)) : null;
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
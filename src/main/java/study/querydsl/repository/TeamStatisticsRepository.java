@@ -0,0 +1,160 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamAgeStatistics;
+import study.querydsl.dto.TeamStatisticsReport;
+import study.querydsl.index.TeamAgeAggregates;
+import study.querydsl.repository.support.MemberSqlWhere;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.support.MultiValueFilters.large;
+import static study.querydsl.repository.support.MultiValueFilters.teamNameIn;
+import static study.querydsl.repository.support.MultiValueFilters.usernameIn;
+import static study.querydsl.repository.support.ReadOnlyQueries.inReadWriteTransaction;
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
+
+/*
+    팀별 회원 수 / 나이 통계.
+    member.team_id 로 group by 하고(team 조인 없음, 팀 이름은 사전에서 채움), 전체 합계는 팀별 결과에서 계산한다.
+    count / sum / min / max 는 그룹 결과를 합쳐도 정확하고, 평균은 sum / count 로 구하므로
+    한번의 조회로 합계까지 만든다. 합계 행을 DB 가 만들게 하려면 group by rollup 이 필요한데,
+    JPQL(Hibernate 5.4 HQL) 에는 rollup 문법이 없어 native 쿼리로 빠져야 하고 DB 마다 지원 여부도 다르다.
+    팀 수만큼의 행을 한번 더 더하는 비용이 그보다 작다.
+
+    값 목록 조건이 in 절 하나(CHUNK_SIZE)를 넘으면 같은 group by 를 native SQL 로 실행한다.(MemberSqlWhere 의 table 함수 조인)
+*/
+@Repository
+@Transactional(readOnly = true)
+public class TeamStatisticsRepository {
+
+    //sum(int) 결과는 Long 이다. member.age.sum() 은 Integer 로 변환되어 넘칠 수 있다.
+    private static final NumberExpression<Long> AGE_SUM = Expressions.numberTemplate(Long.class, "sum({0})", member.age);
+
+    private final EntityManager entityManager;
+    private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TeamNameDictionary teamNameDictionary;
+    //app.team-stats.enabled=false 이면 없다.
+    private final ObjectProvider<TeamAgeAggregates> teamAgeAggregates;
+
+    public TeamStatisticsRepository(EntityManager entityManager, JdbcTemplate jdbcTemplate, TeamNameDictionary teamNameDictionary,
+                                    ObjectProvider<TeamAgeAggregates> teamAgeAggregates) {
+        this.entityManager = entityManager;
+        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.teamNameDictionary = teamNameDictionary;
+        this.teamAgeAggregates = teamAgeAggregates;
+    }
+
+    public TeamStatisticsReport statistics(MemberSearchCondition condition) {
+        //메모리 집계로 답할 수 있으면 member 를 읽지 않는다.(팀 수만큼의 계산)
+        TeamAgeAggregates aggregates = teamAgeAggregates.getIfAvailable();
+        if (aggregates != null) {
+            Optional<TeamStatisticsReport> report = aggregates.statistics(condition);
+            if (report.isPresent()) {
+                return report.get();
+            }
+        }
+
+        List<TeamAgeStatistics> teams = large(condition) ? teamRowsBySql(condition) : teamRows(condition);
+
+        long count = 0;
+        long ageSum = 0;
+        Integer ageMin = null;
+        Integer ageMax = null;
+        for (TeamAgeStatistics statistics : teams) {
+            count += statistics.getCount();
+            ageSum += statistics.getAgeSum();
+            ageMin = ageMin == null ? statistics.getAgeMin() : Math.min(ageMin, statistics.getAgeMin());
+            ageMax = ageMax == null ? statistics.getAgeMax() : Math.max(ageMax, statistics.getAgeMax());
+        }
+        return new TeamStatisticsReport(teams, new TeamAgeStatistics(null, null, count, ageSum, ageMin, ageMax));
+    }
+
+    private List<TeamAgeStatistics> teamRows(MemberSearchCondition condition) {
+        List<Tuple> rows = readOnly(queryFactory
+                .select(member.team.id, member.count(), AGE_SUM, member.age.min(), member.age.max())
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        usernameIn(member.username, condition.getUsernames()),
+                        teamNameIn(member.team.id, condition.getTeamNames(), teamNameDictionary),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .groupBy(member.team.id)
+                .orderBy(member.team.id.asc().nullsLast()))
+                .fetch();
+
+        List<TeamAgeStatistics> teams = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Long teamId = row.get(member.team.id);
+            teams.add(new TeamAgeStatistics(
+                    teamId,
+                    teamNameDictionary.teamName(teamId),
+                    row.get(member.count()),
+                    row.get(AGE_SUM),
+                    row.get(member.age.min()),
+                    row.get(member.age.max())));
+        }
+        return teams;
+    }
+
+    //teamRows 와 같은 결과. SQL 은 영속성 컨텍스트를 보지 않으므로 쓰기 트랜잭션 안이면 먼저 flush 한다.
+    private List<TeamAgeStatistics> teamRowsBySql(MemberSearchCondition condition) {
+        if (inReadWriteTransaction()) {
+            entityManager.flush();
+        }
+        StringBuilder sql = new StringBuilder(
+                "select m.team_id, count(*), sum(cast(m.age as bigint)), min(m.age), max(m.age) from member m where 1=1");
+        List<Object> args = new ArrayList<>();
+        if (!MemberSqlWhere.append(sql, args, condition, teamNameDictionary, "m")) {
+            return new ArrayList<>();
+        }
+        sql.append(" group by m.team_id order by m.team_id nulls last");
+        return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> {
+            long teamId = resultSet.getLong(1);
+            Long nullableTeamId = resultSet.wasNull() ? null : teamId;
+            return new TeamAgeStatistics(
+                    nullableTeamId,
+                    teamNameDictionary.teamName(nullableTeamId),
+                    resultSet.getLong(2),
+                    resultSet.getLong(3),
+                    resultSet.getInt(4),
+                    resultSet.getInt(5));
+        }, args.toArray());
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? member.team.id.in(teamNameDictionary.teamIds(teamName)) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
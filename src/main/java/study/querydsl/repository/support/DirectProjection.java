@@ -0,0 +1,195 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+    리플렉션 없이 생성자를 호출하는 DTO 프로젝션.
+    Projections.constructor / @QueryProjection 은 결과 행마다 Constructor.newInstance 를 호출하지만,
+    여기서는 생성자를 LambdaMetafactory 로 함수형 인터페이스에 한번 바인딩해 두고 행마다 일반 생성자 호출만 한다.
+
+    바인딩은 생성자별로 한번만 하므로 프로젝션은 static final 상수로 만들어 두고 재사용한다.
+    private static final DirectProjection<MemberDto> MEMBER_DTO = DirectProjection.of(MemberDto.class, member.username, member.age);
+*/
+public final class DirectProjection<T> extends FactoryExpressionBase<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    //LambdaMetafactory 는 고정 인자 수의 메소드에만 바인딩할 수 있으므로 인자 수별 인터페이스를 둔다.
+    private static final Class<?>[] FACTORY_TYPES = {
+            Factory0.class, Factory1.class, Factory2.class, Factory3.class, Factory4.class, Factory5.class, Factory6.class
+    };
+
+    //생성자 -> 바인딩된 팩토리
+    private static final Map<Constructor<?>, Function<Object[], ?>> FACTORIES = new ConcurrentHashMap<>();
+
+    private final List<Expression<?>> args;
+    private final transient Function<Object[], T> factory;
+
+    private DirectProjection(Class<T> type, List<Expression<?>> args, Function<Object[], T> factory) {
+        super(type);
+        this.args = args;
+        this.factory = factory;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> DirectProjection<T> of(Class<T> type, Expression<?>... args) {
+        Class<?>[] argTypes = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argTypes[i] = args[i].getType();
+        }
+        Constructor<T> constructor = findConstructor(type, argTypes);
+        Function<Object[], T> factory = (Function<Object[], T>) FACTORIES.computeIfAbsent(constructor, DirectProjection::bind);
+        return new DirectProjection<>(type, Collections.unmodifiableList(Arrays.asList(args)), factory);
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... args) {
+        return factory.apply(args);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DirectProjection)) {
+            return false;
+        }
+        DirectProjection<?> other = (DirectProjection<?>) obj;
+        return getType().equals(other.getType()) && args.equals(other.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getType().hashCode() + args.hashCode();
+    }
+
+    //인자 타입이 그대로(또는 박싱/언박싱으로) 대입 가능한 public 생성자
+    @SuppressWarnings("unchecked")
+    private static <T> Constructor<T> findConstructor(Class<T> type, Class<?>[] argTypes) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            if (parameterTypes.length != argTypes.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameterTypes.length && matches; i++) {
+                matches = ClassUtils.isAssignable(parameterTypes[i], argTypes[i]);
+            }
+            if (matches) {
+                return (Constructor<T>) constructor;
+            }
+        }
+        throw new IllegalArgumentException("No public constructor of " + type.getName()
+                + " accepts " + Arrays.toString(argTypes));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Function<Object[], T> bind(Constructor<?> constructor) {
+        if (!Modifier.isPublic(constructor.getDeclaringClass().getModifiers())) {
+            throw new IllegalArgumentException(constructor.getDeclaringClass().getName() + " is not public");
+        }
+        int arity = constructor.getParameterCount();
+        if (arity >= FACTORY_TYPES.length) {
+            throw new IllegalArgumentException("Constructors with more than " + (FACTORY_TYPES.length - 1)
+                    + " parameters are not supported: " + constructor);
+        }
+        Object factory;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle target = lookup.unreflectConstructor(constructor);
+            CallSite callSite = LambdaMetafactory.metafactory(
+                    lookup,
+                    "create",
+                    MethodType.methodType(FACTORY_TYPES[arity]),
+                    //인터페이스 메소드 : (Object...)Object
+                    MethodType.genericMethodType(arity),
+                    target,
+                    //primitive 파라미터는 박싱 타입으로 받아서 언박싱한다.
+                    target.type().wrap());
+            factory = callSite.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to bind constructor " + constructor, e);
+        }
+
+        switch (arity) {
+            case 0:
+                Factory0 factory0 = (Factory0) factory;
+                return args -> (T) factory0.create();
+            case 1:
+                Factory1 factory1 = (Factory1) factory;
+                return args -> (T) factory1.create(args[0]);
+            case 2:
+                Factory2 factory2 = (Factory2) factory;
+                return args -> (T) factory2.create(args[0], args[1]);
+            case 3:
+                Factory3 factory3 = (Factory3) factory;
+                return args -> (T) factory3.create(args[0], args[1], args[2]);
+            case 4:
+                Factory4 factory4 = (Factory4) factory;
+                return args -> (T) factory4.create(args[0], args[1], args[2], args[3]);
+            case 5:
+                Factory5 factory5 = (Factory5) factory;
+                return args -> (T) factory5.create(args[0], args[1], args[2], args[3], args[4]);
+            default:
+                Factory6 factory6 = (Factory6) factory;
+                return args -> (T) factory6.create(args[0], args[1], args[2], args[3], args[4], args[5]);
+        }
+    }
+
+    //인자 수별 팩토리 인터페이스
+    interface Factory0 {
+        Object create();
+    }
+
+    interface Factory1 {
+        Object create(Object a);
+    }
+
+    interface Factory2 {
+        Object create(Object a, Object b);
+    }
+
+    interface Factory3 {
+        Object create(Object a, Object b, Object c);
+    }
+
+    interface Factory4 {
+        Object create(Object a, Object b, Object c, Object d);
+    }
+
+    interface Factory5 {
+        Object create(Object a, Object b, Object c, Object d, Object e);
+    }
+
+    interface Factory6 {
+        Object create(Object a, Object b, Object c, Object d, Object e, Object f);
+    }
+}
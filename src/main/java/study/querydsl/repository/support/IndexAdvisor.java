@@ -0,0 +1,299 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.IndexRecommendation;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
+
+/*
+    인덱스 어드바이저.
+    검색 조건의 모양(어떤 조건이 채워졌는지 + 정렬)별 호출 빈도를 기록하고,
+    빈도가 높은 모양부터 추천 인덱스 DDL 과 예상 선택도를 만든다.
+
+    컬럼 순서 : 동등 조건(선택도가 좋은 순) -> 범위 조건(age) -> 정렬 컬럼(범위 조건이 없는 경우만)
+    선택도 : 동등 조건은 1 / distinct 수, age 범위는 기록된 평균 범위 / 전체 범위(균등 분포 가정), 조건간 독립 가정.
+*/
+@Component
+public class IndexAdvisor {
+
+    //정렬 프로퍼티는 클라이언트가 정하므로 모양의 수가 무한히 늘어나지 않게 제한한다.
+    private static final int MAX_SHAPES = 1_000;
+
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "id");
+        SORT_COLUMNS.put("memberId", "id");
+        SORT_COLUMNS.put("username", "username");
+        SORT_COLUMNS.put("age", "age");
+        SORT_COLUMNS.put("teamId", "team_id");
+    }
+
+    private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    public IndexAdvisor(EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(MemberSearchCondition condition) {
+        record(condition, Sort.unsorted());
+    }
+
+    public void record(MemberSearchCondition condition, Sort sort) {
+        //in 목록도 인덱스 선두 컬럼으로는 동등 조건과 같다.
+        List<String> equalityColumns = new ArrayList<>();
+        if (StringUtils.hasText(condition.getUsername()) || !CollectionUtils.isEmpty(condition.getUsernames())) {
+            equalityColumns.add("username");
+        }
+        if (StringUtils.hasText(condition.getTeamName()) || !CollectionUtils.isEmpty(condition.getTeamNames())) {
+            equalityColumns.add("team_id");
+        }
+        boolean ageGoe = condition.getAgeGoe() != null;
+        boolean ageLoe = condition.getAgeLoe() != null;
+
+        List<String> sortColumns = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column != null) {
+                sortColumns.add(column + (order.isDescending() ? " desc" : ""));
+            }
+        }
+
+        String shape = shape(equalityColumns, ageGoe, ageLoe, sortColumns);
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            if (shapes.size() >= MAX_SHAPES) {
+                return;
+            }
+            stats = shapes.computeIfAbsent(shape, key -> new ShapeStats(key, equalityColumns, ageGoe, ageLoe, sortColumns));
+        }
+        stats.record(condition);
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    @Transactional(readOnly = true)
+    public List<IndexRecommendation> recommend() {
+        ColumnStatistics statistics = columnStatistics();
+        Map<String, List<String>> existingIndexes = existingIndexes();
+
+        List<ShapeStats> sortedShapes = new ArrayList<>(shapes.values());
+        sortedShapes.sort(Comparator.comparingLong(ShapeStats::frequency).reversed());
+
+        List<IndexRecommendation> recommendations = new ArrayList<>();
+        for (ShapeStats shape : sortedShapes) {
+            List<String> equalityColumns = new ArrayList<>(shape.equalityColumns);
+            equalityColumns.sort(Comparator.comparingDouble(statistics::equalitySelectivity));
+
+            List<String> columns = new ArrayList<>(equalityColumns);
+            double selectivity = 1.0;
+            for (String column : equalityColumns) {
+                selectivity *= statistics.equalitySelectivity(column);
+            }
+            if (shape.ageGoe || shape.ageLoe) {
+                columns.add("age");
+                selectivity *= statistics.ageRangeSelectivity(shape.averageAgeGoe(), shape.averageAgeLoe());
+            } else {
+                //범위 조건 뒤의 컬럼으로는 정렬을 처리할 수 없으므로 범위 조건이 없을때만 정렬 컬럼을 붙인다.
+                for (String sortColumn : shape.sortColumns) {
+                    String column = sortColumn.replace(" desc", "");
+                    if (!columns.contains(column)) {
+                        columns.add(column);
+                    }
+                }
+            }
+            if (columns.isEmpty()) {
+                //조건도 정렬도 없는 전체 조회는 인덱스로 줄일 수 없다.
+                continue;
+            }
+
+            String coveredBy = coveredBy(columns, existingIndexes);
+            String ddl = "create index idx_member_" + String.join("_", columns)
+                    + " on member (" + String.join(", ", columns) + ")";
+            recommendations.add(new IndexRecommendation(
+                    shape.shape,
+                    shape.frequency(),
+                    columns,
+                    selectivity,
+                    Math.round(selectivity * statistics.rowCount),
+                    coveredBy,
+                    ddl));
+        }
+        return recommendations;
+    }
+
+    private static String shape(List<String> equalityColumns, boolean ageGoe, boolean ageLoe, List<String> sortColumns) {
+        List<String> parts = new ArrayList<>();
+        for (String column : equalityColumns) {
+            parts.add(column + " =");
+        }
+        if (ageGoe) {
+            parts.add("age >=");
+        }
+        if (ageLoe) {
+            parts.add("age <=");
+        }
+        String shape = parts.isEmpty() ? "(no condition)" : String.join(" and ", parts);
+        return sortColumns.isEmpty() ? shape : shape + " order by " + String.join(", ", sortColumns);
+    }
+
+    private ColumnStatistics columnStatistics() {
+        Tuple tuple = readOnly(queryFactory
+                .select(
+                        member.count(),
+                        member.username.countDistinct(),
+                        member.team.id.countDistinct(),
+                        member.age.min(),
+                        member.age.max()
+                )
+                .from(member))
+                .fetchOne();
+        return new ColumnStatistics(
+                tuple.get(member.count()),
+                tuple.get(member.username.countDistinct()),
+                tuple.get(member.team.id.countDistinct()),
+                tuple.get(member.age.min()),
+                tuple.get(member.age.max()));
+    }
+
+    //선언된 인덱스 이름 -> 컬럼 목록(순서대로, 소문자)
+    private Map<String, List<String>> existingIndexes() {
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, List<String>>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+            //DB 마다 식별자 대소문자 저장 방식이 다르다.
+            String table = metaData.storesUpperCaseIdentifiers() ? "MEMBER" : "member";
+            try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+                while (resultSet.next()) {
+                    String indexName = resultSet.getString("INDEX_NAME");
+                    String columnName = resultSet.getString("COLUMN_NAME");
+                    if (indexName == null || columnName == null) {
+                        continue;
+                    }
+                    indexes.computeIfAbsent(indexName.toLowerCase(), name -> new TreeMap<>())
+                            .put(resultSet.getShort("ORDINAL_POSITION"), columnName.toLowerCase());
+                }
+            }
+            Map<String, List<String>> result = new LinkedHashMap<>();
+            indexes.forEach((name, columns) -> result.put(name, new ArrayList<>(columns.values())));
+            return result;
+        });
+    }
+
+    private static String coveredBy(List<String> columns, Map<String, List<String>> existingIndexes) {
+        for (Map.Entry<String, List<String>> index : existingIndexes.entrySet()) {
+            List<String> indexColumns = index.getValue();
+            if (indexColumns.size() >= columns.size()
+                    && indexColumns.subList(0, columns.size()).equals(columns)) {
+                return index.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static class ShapeStats {
+        private final String shape;
+        private final List<String> equalityColumns;
+        private final boolean ageGoe;
+        private final boolean ageLoe;
+        private final List<String> sortColumns;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumAgeGoe = new LongAdder();
+        private final LongAdder sumAgeLoe = new LongAdder();
+
+        private ShapeStats(String shape, List<String> equalityColumns, boolean ageGoe, boolean ageLoe, List<String> sortColumns) {
+            this.shape = shape;
+            this.equalityColumns = Collections.unmodifiableList(equalityColumns);
+            this.ageGoe = ageGoe;
+            this.ageLoe = ageLoe;
+            this.sortColumns = Collections.unmodifiableList(sortColumns);
+        }
+
+        private void record(MemberSearchCondition condition) {
+            count.increment();
+            if (condition.getAgeGoe() != null) {
+                sumAgeGoe.add(condition.getAgeGoe());
+            }
+            if (condition.getAgeLoe() != null) {
+                sumAgeLoe.add(condition.getAgeLoe());
+            }
+        }
+
+        private long frequency() {
+            return count.sum();
+        }
+
+        private Double averageAgeGoe() {
+            long frequency = frequency();
+            return ageGoe && frequency > 0 ? (double) sumAgeGoe.sum() / frequency : null;
+        }
+
+        private Double averageAgeLoe() {
+            long frequency = frequency();
+            return ageLoe && frequency > 0 ? (double) sumAgeLoe.sum() / frequency : null;
+        }
+    }
+
+    private static class ColumnStatistics {
+        private final long rowCount;
+        private final long distinctUsernames;
+        private final long distinctTeams;
+        private final Integer minAge;
+        private final Integer maxAge;
+
+        private ColumnStatistics(Long rowCount, Long distinctUsernames, Long distinctTeams, Integer minAge, Integer maxAge) {
+            this.rowCount = rowCount != null ? rowCount : 0;
+            this.distinctUsernames = distinctUsernames != null ? distinctUsernames : 0;
+            this.distinctTeams = distinctTeams != null ? distinctTeams : 0;
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+        }
+
+        private double equalitySelectivity(String column) {
+            long distinct = "username".equals(column) ? distinctUsernames : distinctTeams;
+            return distinct > 0 ? 1.0 / distinct : 1.0;
+        }
+
+        private double ageRangeSelectivity(Double ageGoe, Double ageLoe) {
+            if (minAge == null || maxAge == null) {
+                return 1.0;
+            }
+            double low = ageGoe != null ? Math.max(ageGoe, minAge) : minAge;
+            double high = ageLoe != null ? Math.min(ageLoe, maxAge) : maxAge;
+            if (high < low) {
+                return 0.0;
+            }
+            return (high - low + 1) / (maxAge - minAge + 1);
+        }
+    }
+}
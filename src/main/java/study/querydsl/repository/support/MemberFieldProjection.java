@@ -0,0 +1,115 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamField;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+
+/*
+    요청한 필드만 select 하는 프로젝션.
+    teamId / teamName 은 member.team_id 하나로 처리하고(teamName 은 사전에서 채움), 둘 다 없으면 team_id 도 읽지 않는다.
+    결과는 요청한 필드만 담은 Map 으로 돌려준다.(필드 순서는 MemberTeamDto 와 같다)
+*/
+public class MemberFieldProjection {
+
+    private final Set<MemberTeamField> fields;
+    private final TeamNameDictionary teamNameDictionary;
+    private final Expression<?>[] expressions;
+
+    public MemberFieldProjection(Set<MemberTeamField> fields, TeamNameDictionary teamNameDictionary) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("at least one field is required");
+        }
+        this.fields = fields;
+        this.teamNameDictionary = teamNameDictionary;
+
+        List<Expression<?>> selected = new ArrayList<>();
+        if (fields.contains(MemberTeamField.MEMBER_ID)) {
+            selected.add(member.id);
+        }
+        if (fields.contains(MemberTeamField.USERNAME)) {
+            selected.add(member.username);
+        }
+        if (fields.contains(MemberTeamField.AGE)) {
+            selected.add(member.age);
+        }
+        if (fields.contains(MemberTeamField.TEAM_ID) || fields.contains(MemberTeamField.TEAM_NAME)) {
+            //FK 컬럼만 읽으므로 team 조인은 생기지 않는다.
+            selected.add(member.team.id);
+        }
+        this.expressions = selected.toArray(new Expression<?>[0]);
+    }
+
+    public Expression<?>[] expressions() {
+        return expressions;
+    }
+
+    public List<Map<String, Object>> toMaps(List<Tuple> tuples) {
+        List<Map<String, Object>> result = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            result.add(toMap(tuple));
+        }
+        return result;
+    }
+
+    //전체 필드로 조회한 결과(JDBC 조회)에서 요청한 필드만 고른다.
+    public List<Map<String, Object>> fromDtos(List<MemberTeamDto> dtos) {
+        List<Map<String, Object>> result = new ArrayList<>(dtos.size());
+        for (MemberTeamDto dto : dtos) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (MemberTeamField field : fields) {
+                switch (field) {
+                    case MEMBER_ID:
+                        row.put(field.getJsonName(), dto.getMemberId());
+                        break;
+                    case USERNAME:
+                        row.put(field.getJsonName(), dto.getUsername());
+                        break;
+                    case AGE:
+                        row.put(field.getJsonName(), dto.getAge());
+                        break;
+                    case TEAM_ID:
+                        row.put(field.getJsonName(), dto.getTeamId());
+                        break;
+                    case TEAM_NAME:
+                        row.put(field.getJsonName(), dto.getTeamName());
+                        break;
+                }
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    private Map<String, Object> toMap(Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (MemberTeamField field : fields) {
+            switch (field) {
+                case MEMBER_ID:
+                    row.put(field.getJsonName(), tuple.get(member.id));
+                    break;
+                case USERNAME:
+                    row.put(field.getJsonName(), tuple.get(member.username));
+                    break;
+                case AGE:
+                    row.put(field.getJsonName(), tuple.get(member.age));
+                    break;
+                case TEAM_ID:
+                    row.put(field.getJsonName(), tuple.get(member.team.id));
+                    break;
+                case TEAM_NAME:
+                    row.put(field.getJsonName(), teamNameDictionary.teamName(tuple.get(member.team.id)));
+                    break;
+            }
+        }
+        return row;
+    }
+}
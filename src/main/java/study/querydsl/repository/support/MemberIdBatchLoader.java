@@ -0,0 +1,90 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+    id 목록으로 Member 를 한번에 조회한다. (findById 반복 대신)
+    1. 영속성 컨텍스트에 이미 있는 회원은 조회하지 않는다.
+    2. 나머지는 CHUNK_SIZE 개씩 in 절로 조회하고 team 을 fetch join 한다.
+       in_clause_parameter_padding 으로 in 절 파라미터 수가 2의 거듭제곱이 되므로 SQL 모양은 몇 개뿐이다.
+    3. 결과는 요청한 id 순서대로. 중복 id 는 한번만, 없는 id 는 빠진다.
+
+    트랜잭션 안에서 호출해야 한다. (영속성 컨텍스트를 확인하고, 조회한 엔티티는 영속 상태로 돌려준다)
+*/
+@Component
+public class MemberIdBatchLoader {
+
+    public static final int CHUNK_SIZE = MultiValueFilters.CHUNK_SIZE;
+
+    private final EntityManager entityManager;
+    private final JPAQueryFactory queryFactory;
+
+    public MemberIdBatchLoader(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        List<Long> distinct = MultiValueFilters.distinct(ids);
+        if (distinct.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Member> found = new HashMap<>(distinct.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        PersistenceContext persistenceContext = session.getPersistenceContext();
+        for (Long id : distinct) {
+            Object managed = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+            if (managed == null) {
+                misses.add(id);
+                continue;
+            }
+            //이 트랜잭션에서 삭제한 회원은 없는 것으로 본다. (DB 에서 다시 읽지 않는다)
+            EntityEntry entry = persistenceContext.getEntry(managed);
+            if (entry != null && entry.getStatus() != Status.DELETED && entry.getStatus() != Status.GONE) {
+                found.put(id, (Member) managed);
+            }
+        }
+
+        for (int from = 0; from < misses.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = misses.subList(from, Math.min(misses.size(), from + CHUNK_SIZE));
+            List<Member> loaded = queryFactory
+                    .selectFrom(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .where(member.id.in(chunk))
+                    .fetch();
+            for (Member loadedMember : loaded) {
+                found.put(loadedMember.getId(), loadedMember);
+            }
+        }
+
+        List<Member> result = new ArrayList<>(found.size());
+        for (Long id : distinct) {
+            Member member = found.get(id);
+            if (member != null) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+}
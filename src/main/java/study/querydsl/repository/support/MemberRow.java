@@ -0,0 +1,14 @@
+package study.querydsl.repository.support;
+
+import lombok.Value;
+
+//커밋된 회원 한건의 상태. (MemberWriteListener 로 전달)
+@Value
+public class MemberRow {
+    long id;
+    String username;
+    int age;
+    Long teamId;
+    //Member.version, 같은 회원의 상태 중 큰 쪽이 나중에 커밋된 것이다.
+    long version;
+}
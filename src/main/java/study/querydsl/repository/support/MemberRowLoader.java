@@ -0,0 +1,75 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
+
+/*
+    커밋된 전체 회원을 id 순서로 나눠서(keyset) 읽는다. 메모리 인덱스 재구성, DB 정합성 확인용.
+    청크마다 별도의 읽기 전용 트랜잭션을 사용하므로 하나의 스냅샷은 아니다.(읽는 도중의 변경은 이벤트로 따라잡는다)
+*/
+@Component
+public class MemberRowLoader {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public MemberRowLoader(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    //회원 한건. 호출한 쪽에 트랜잭션이 있으면 참여한다.
+    public Optional<MemberRow> findById(long id) {
+        Tuple tuple = readOnlyTransaction.execute(status -> readOnly(queryFactory
+                .select(member.id, member.username, member.age, member.team.id, member.version)
+                .from(member)
+                .where(member.id.eq(id)))
+                .fetchOne());
+        return Optional.ofNullable(tuple).map(MemberRowLoader::toRow);
+    }
+
+    public void forEach(Consumer<MemberRow> consumer) {
+        long lastId = 0;
+        while (true) {
+            long fromId = lastId;
+            List<Tuple> chunk = readOnlyTransaction.execute(status -> readOnly(queryFactory
+                    .select(member.id, member.username, member.age, member.team.id, member.version)
+                    .from(member)
+                    .where(member.id.gt(fromId))
+                    .orderBy(member.id.asc())
+                    .limit(CHUNK_SIZE))
+                    .fetch());
+
+            for (Tuple tuple : chunk) {
+                consumer.accept(toRow(tuple));
+            }
+            if (chunk.size() < CHUNK_SIZE) {
+                return;
+            }
+            lastId = chunk.get(chunk.size() - 1).get(member.id);
+        }
+    }
+
+    private static MemberRow toRow(Tuple tuple) {
+        return new MemberRow(
+                tuple.get(member.id),
+                tuple.get(member.username),
+                tuple.get(member.age),
+                tuple.get(member.team.id),
+                tuple.get(member.version));
+    }
+}
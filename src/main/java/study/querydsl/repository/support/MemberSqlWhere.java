@@ -0,0 +1,62 @@
+package study.querydsl.repository.support;
+
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+
+/*
+    JDBC(네이티브 SQL) 조회용 MemberSearchCondition where 절.
+    JPA 쪽 usernameEq / teamNameEq / ageGoe / ageLoe 와 같은 조건이고, teamName 은 사전으로 team_id 로 바꿔서 조인 없이 필터링한다.
+*/
+public final class MemberSqlWhere {
+
+    private MemberSqlWhere() {
+    }
+
+    /*
+        alias 컬럼에 대한 조건을 " and ..." 로 sql 에 붙이고 파라미터를 args 에 넣는다.
+        결과가 없는 것이 확실하면(없는 팀 이름) false 를 돌려준다. 이때는 조회하지 않는다.
+    */
+    public static boolean append(StringBuilder sql, List<Object> args, MemberSearchCondition condition,
+                                 TeamNameDictionary teamNameDictionary, String alias) {
+        if (StringUtils.hasText(condition.getUsername())) {
+            sql.append(" and ").append(alias).append(".username = ?");
+            args.add(condition.getUsername());
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            List<Long> teamIds = teamNameDictionary.teamIds(condition.getTeamName());
+            if (teamIds.isEmpty()) {
+                return false;
+            }
+            sql.append(" and ").append(alias).append(".team_id in (");
+            for (int i = 0; i < teamIds.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+            args.addAll(teamIds);
+        }
+        if (!CollectionUtils.isEmpty(condition.getUsernames())) {
+            sql.append(" and ");
+            MultiValueFilters.appendIn(sql, args, alias + ".username", condition.getUsernames(), "varchar");
+        }
+        if (!CollectionUtils.isEmpty(condition.getTeamNames())) {
+            List<Long> teamIds = teamNameDictionary.teamIds(condition.getTeamNames());
+            if (teamIds.isEmpty()) {
+                return false;
+            }
+            sql.append(" and ");
+            MultiValueFilters.appendIn(sql, args, alias + ".team_id", teamIds, "bigint");
+        }
+        if (condition.getAgeGoe() != null) {
+            sql.append(" and ").append(alias).append(".age >= ?");
+            args.add(condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            sql.append(" and ").append(alias).append(".age <= ?");
+            args.add(condition.getAgeLoe());
+        }
+        return true;
+    }
+}
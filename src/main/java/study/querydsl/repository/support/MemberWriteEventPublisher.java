@@ -0,0 +1,130 @@
+package study.querydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.tuple.entity.EntityMetamodel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.function.Consumer;
+
+/*
+    Member 의 post-commit insert/update/delete 이벤트를 받아서 MemberWriteListener 빈들에게 전달한다.
+    EntityManagerFactory 생성이 끝난 뒤 하이버네이트 이벤트 리스너로 등록한다.
+*/
+@Slf4j
+@Component
+public class MemberWriteEventPublisher implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<MemberWriteListener> listeners;
+
+    public MemberWriteEventPublisher(EntityManagerFactory entityManagerFactory, ObjectProvider<MemberWriteListener> listeners) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.listeners = listeners;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Member.class.equals(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        MemberRow row = toRow(event.getId(), event.getState(), event.getPersister());
+        publish(listener -> listener.onMemberInserted(row));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        MemberRow before = event.getOldState() != null
+                ? toRow(event.getId(), event.getOldState(), event.getPersister())
+                : null;
+        MemberRow after = toRow(event.getId(), event.getState(), event.getPersister());
+        publish(listener -> listener.onMemberUpdated(before, after));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        MemberRow row = toRow(event.getId(), event.getDeletedState(), event.getPersister());
+        publish(listener -> listener.onMemberDeleted(row));
+    }
+
+    //커밋이 실패한 변경은 반영하지 않는다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    //이미 커밋된 이후이므로 구독자의 예외가 호출한 쪽으로 전파되지 않게 한다.
+    private void publish(Consumer<MemberWriteListener> action) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                action.accept(listener);
+            } catch (RuntimeException e) {
+                log.warn("member write listener failed. listener={}", listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+
+    private static MemberRow toRow(Serializable id, Object[] state, EntityPersister persister) {
+        EntityMetamodel metamodel = persister.getEntityMetamodel();
+        String username = (String) state[metamodel.getPropertyIndex("username")];
+        Integer age = (Integer) state[metamodel.getPropertyIndex("age")];
+        Object team = state[metamodel.getPropertyIndex("team")];
+        Long version = (Long) state[metamodel.getPropertyIndex("version")];
+        return new MemberRow((Long) id, username, age != null ? age : 0, teamId(team), version != null ? version : 0L);
+    }
+
+    //지연 로딩 프록시는 초기화하지 않고 식별자만 꺼낸다.(커밋 이후라 세션이 닫혀 있을 수 있음)
+    private static Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+}
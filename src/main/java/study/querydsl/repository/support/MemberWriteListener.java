@@ -0,0 +1,15 @@
+package study.querydsl.repository.support;
+
+/*
+    회원 변경 구독. 트랜잭션이 커밋된 이후에 호출된다.(롤백된 변경은 전달되지 않음)
+    벌크 연산(queryFactory.update/delete)은 영속성 컨텍스트를 거치지 않으므로 전달되지 않는다.
+*/
+public interface MemberWriteListener {
+
+    void onMemberInserted(MemberRow row);
+
+    //before : 변경 전 상태. 분리된 엔티티를 select 없이 update 하는 경우 등 알 수 없으면 null
+    void onMemberUpdated(MemberRow before, MemberRow after);
+
+    void onMemberDeleted(MemberRow row);
+}
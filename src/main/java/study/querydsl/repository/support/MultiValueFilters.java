@@ -0,0 +1,139 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import org.springframework.util.CollectionUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/*
+    값 목록 조건(usernames, teamNames) -> in 절.
+
+    in 절의 파라미터 수가 바뀔 때마다 다른 SQL 이 되어 plan cache 가 목록 크기별로 쌓이므로,
+    파라미터 수를 2의 거듭제곱으로 맞춘다.(마지막 값을 반복)
+    - JPA(JPQL) : hibernate.query.in_clause_parameter_padding 이 바인딩할때 맞춘다.
+                  CHUNK_SIZE 를 넘으면 CHUNK_SIZE 개씩 나눈 in 절을 or 로 묶는다.(DB 의 in 목록 / 파라미터 수 제한)
+                  JPQL 은 table 함수를 쓸 수 없어 or 가 목록 크기만큼 늘어나므로,
+                  검색 조건 목록이 CHUNK_SIZE 를 넘으면(large) 회원 검색은 JDBC 조회(MemberJdbcRepository)로 넘긴다.
+    - JDBC      : 여기서 맞춘다. CHUNK_SIZE 를 넘으면 목록 전체를 배열 파라미터 하나로 넘겨서
+                  H2 table 함수(테이블 값 파라미터)로 조인한다. 목록 크기와 상관없이 SQL 이 하나다.
+    - querydsl-sql : Hibernate 패딩이 적용되지 않으므로 JDBC 와 같이 여기서 맞춘다.(sqlIn)
+*/
+public final class MultiValueFilters {
+
+    //in 절 하나의 최대 파라미터 수 (2의 거듭제곱 : 패딩해도 넘지 않음)
+    public static final int CHUNK_SIZE = 512;
+
+    private MultiValueFilters() {
+    }
+
+    //값 목록 조건이 있는지. 메모리 인덱스들은 값 목록 조건을 처리하지 않는다.
+    public static boolean present(MemberSearchCondition condition) {
+        return !CollectionUtils.isEmpty(condition.getUsernames()) || !CollectionUtils.isEmpty(condition.getTeamNames());
+    }
+
+    //값 목록 조건 중 in 절 하나(CHUNK_SIZE)를 넘는 것이 있는지. JPA 검색은 이때 table 함수를 쓰는 JDBC 조회로 넘긴다.
+    public static boolean large(MemberSearchCondition condition) {
+        return size(condition.getUsernames()) > CHUNK_SIZE || size(condition.getTeamNames()) > CHUNK_SIZE;
+    }
+
+    private static int size(Collection<?> values) {
+        return values == null ? 0 : values.size();
+    }
+
+    //null 제거 + 중복 제거 (순서 유지)
+    public static <T> List<T> distinct(Collection<? extends T> values) {
+        LinkedHashSet<T> distinct = new LinkedHashSet<>(values);
+        distinct.remove(null);
+        return new ArrayList<>(distinct);
+    }
+
+    //path in (values). 목록이 비어 있으면 결과 없음(1=2).
+    public static <T> BooleanExpression in(SimpleExpression<T> path, Collection<? extends T> values) {
+        List<T> distinct = distinct(values);
+        if (distinct.size() <= CHUNK_SIZE) {
+            return path.in(distinct);
+        }
+        List<BooleanExpression> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            chunks.add(path.in(distinct.subList(from, Math.min(distinct.size(), from + CHUNK_SIZE))));
+        }
+        return Expressions.anyOf(chunks.toArray(new BooleanExpression[0]));
+    }
+
+    //usernames 조건. 목록이 없으면 null(조건 없음)
+    public static BooleanExpression usernameIn(SimpleExpression<String> username, List<String> usernames) {
+        if (CollectionUtils.isEmpty(usernames)) {
+            return null;
+        }
+        return in(username, usernames);
+    }
+
+    //teamNames 조건. 사전에서 팀 id 로 바꿔서 team_id 로 비교한다. 목록이 없으면 null(조건 없음)
+    public static BooleanExpression teamNameIn(SimpleExpression<Long> teamId, List<String> teamNames, TeamNameDictionary dictionary) {
+        if (CollectionUtils.isEmpty(teamNames)) {
+            return null;
+        }
+        return in(teamId, dictionary.teamIds(teamNames));
+    }
+
+    /*
+        querydsl-sql : path in (values). appendIn 과 같이 2의 거듭제곱으로 패딩하고,
+        CHUNK_SIZE 를 넘으면 배열 파라미터 하나를 table 함수로 조인한다. sqlType 은 table 함수의 컬럼 타입
+    */
+    public static <T> BooleanExpression sqlIn(SimpleExpression<T> path, Collection<? extends T> values, String sqlType) {
+        List<T> distinct = distinct(values);
+        if (distinct.isEmpty()) {
+            return path.in(distinct);
+        }
+        if (distinct.size() > CHUNK_SIZE) {
+            return Expressions.booleanTemplate("{0} in (select x from table(x " + sqlType + " = {1}))",
+                    path, Expressions.constant(distinct.toArray()));
+        }
+        return path.in(padded(distinct));
+    }
+
+    /*
+        JDBC : sql 에 "column in (...)" 을 붙이고 파라미터를 args 에 넣는다. values 는 비어 있으면 안 된다.
+        sqlType 은 table 함수의 컬럼 타입 (varchar, bigint ...)
+    */
+    public static void appendIn(StringBuilder sql, List<Object> args, String column, Collection<?> values, String sqlType) {
+        List<?> distinct = distinct(values);
+        if (distinct.isEmpty()) {
+            sql.append("1 = 0");
+            return;
+        }
+        if (distinct.size() > CHUNK_SIZE) {
+            sql.append(column).append(" in (select x from table(x ").append(sqlType).append(" = ?))");
+            args.add(distinct.toArray());
+            return;
+        }
+        List<?> padded = padded(distinct);
+        sql.append(column).append(" in (");
+        for (int i = 0; i < padded.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        args.addAll(padded);
+    }
+
+    //마지막 값을 반복해서 paddedSize 개로 맞춘다.
+    private static <T> List<T> padded(List<T> values) {
+        List<T> padded = new ArrayList<>(values);
+        T last = values.get(values.size() - 1);
+        for (int i = values.size(), size = paddedSize(values.size()); i < size; i++) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    //size 이상인 가장 작은 2의 거듭제곱
+    static int paddedSize(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+}
@@ -21,6 +21,8 @@ import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.function.Function;
 
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
+
 @Repository
 public abstract class Querydsl4RepositorySupport {
 
@@ -76,7 +78,7 @@ public abstract class Querydsl4RepositorySupport {
 
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
-        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery jpaQuery = readOnly(contentQuery.apply(getQueryFactory()));
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
@@ -86,10 +88,10 @@ public abstract class Querydsl4RepositorySupport {
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
-        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery jpaContentQuery = readOnly(contentQuery.apply(getQueryFactory()));
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        JPAQuery countResult = readOnly(countQuery.apply(getQueryFactory()));
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
     }
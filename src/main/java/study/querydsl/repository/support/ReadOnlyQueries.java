@@ -0,0 +1,35 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class ReadOnlyQueries {
+
+    private ReadOnlyQueries() {
+    }
+
+    /*
+        조회 전용 쿼리 힌트.
+        org.hibernate.readOnly : 조회된 엔티티의 스냅샷을 만들지 않아 dirty checking 비용과 메모리를 줄인다.
+        org.hibernate.flushMode=MANUAL : 쿼리 실행 전에 flush 하지 않는다.
+
+        쓰기 트랜잭션에 참여한 경우에는 적용하지 않는다.(같은 트랜잭션에서 저장한 데이터가 조회되어야 하고,
+        조회한 엔티티를 수정하는 경우 변경 감지가 동작해야 하기 때문)
+    */
+    public static <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        if (inReadWriteTransaction()) {
+            return query;
+        }
+        return query
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+    }
+
+    //쓰기 트랜잭션 안에서는 아직 커밋되지 않은 자신의 변경이 보여야 하므로 DB 를 직접 조회해야 한다.
+    public static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Team;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+
+/*
+    Team 엔티티 리스너. 팀이 변경되면 TeamNameDictionary 에 알린다.
+    - 트랜잭션 안 : 그 트랜잭션은 끝날때까지 자신이 로딩한 사전을 쓴다. 같은 트랜잭션에서 저장한 팀을 검색 조건으로 쓰는 경우, 다시 로딩하면서 flush 된다.
+    - 트랜잭션 종료 후 공유 사전을 무효화 : 커밋된 변경은 다른 트랜잭션에서도 보이도록. (롤백된 팀은 공유 사전에 들어가지 않는다)
+
+    엔티티 리스너는 EntityManagerFactory 생성 중에 만들어지므로 사전은 ObjectProvider 로 지연 조회한다.
+*/
+@Component
+public class TeamChangeListener {
+
+    private final ObjectProvider<TeamNameDictionary> teamNameDictionary;
+
+    public TeamChangeListener(ObjectProvider<TeamNameDictionary> teamNameDictionary) {
+        this.teamNameDictionary = teamNameDictionary;
+    }
+
+    @PrePersist
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Team team) {
+        TeamNameDictionary dictionary = teamNameDictionary.getIfAvailable();
+        if (dictionary == null) {
+            return;
+        }
+        dictionary.changedInTransaction();
+    }
+}
@@ -0,0 +1,222 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.ReadOnlyQueries.readOnly;
+
+/*
+    팀 이름 <-> 팀 id 사전.
+    검색 조건의 teamName 을 team_id 로 바꿔서 team 조인 없이 member.team_id 로 필터링하고,
+    조회 결과의 teamName 은 메모리에서 채운다.
+
+    팀 이름은 유일하지 않으므로 이름 하나에 여러 id 가 매핑될 수 있다.
+    Team 변경시 TeamChangeListener 가 무효화하고, 다음 조회시 다시 로딩한다.
+    (다른 인스턴스에서 변경한 경우를 위해 refresh-interval 이 지나도 다시 로딩)
+
+    공유 스냅샷은 별도의 읽기 전용 트랜잭션(REQUIRES_NEW)에서 로딩하므로 커밋된 팀만 담긴다.
+    팀을 변경한 트랜잭션 안에서는 그 트랜잭션에서 로딩한 스냅샷을 따로 쓰고, 트랜잭션이 끝나면 버린다.
+*/
+@Component
+public class TeamNameDictionary {
+
+    //사전에 없는 id 로 다시 로딩하는 최소 간격. 모르는 id 가 여러 건인 결과도 로딩은 한번이다.
+    private static final long MISS_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate reloadTransaction;
+    private final long refreshIntervalNanos;
+
+    //무효화될때마다 증가, 스냅샷의 버전과 다르면 다시 로딩한다.
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+    //공유 스냅샷은 한 스레드만 로딩한다. (로딩하는 스레드는 커넥션을 하나 더 쓴다)
+    private final Object reloadLock = new Object();
+
+    public TeamNameDictionary(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                              @Value("${app.team-dictionary.refresh-interval:PT1M}") Duration refreshInterval) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.reloadTransaction = new TransactionTemplate(transactionManager);
+        this.reloadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reloadTransaction.setReadOnly(true);
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    public List<Long> teamIds(String teamName) {
+        List<Long> teamIds = current().teamIdsByName.get(teamName);
+        return teamIds != null ? teamIds : Collections.emptyList();
+    }
+
+    //이름 목록 중 하나를 가진 팀 id
+    public List<Long> teamIds(Collection<String> teamNames) {
+        Snapshot current = current();
+        List<Long> teamIds = new ArrayList<>();
+        for (String teamName : new HashSet<>(teamNames)) {
+            List<Long> ids = current.teamIdsByName.get(teamName);
+            if (ids != null) {
+                teamIds.addAll(ids);
+            }
+        }
+        return teamIds;
+    }
+
+    public String teamName(Long teamId) {
+        if (teamId == null) {
+            return null;
+        }
+        Snapshot current = current();
+        if (!current.teamNameById.containsKey(teamId)) {
+            //FK 로 참조되는 팀이 사전에 없는 경우(벌크 insert 등 이벤트를 거치지 않은 변경) 한번 더 로딩.
+            current = reloadAfterMiss(current);
+        }
+        return current.teamNameById.get(teamId);
+    }
+
+    //모르는 id 를 먼저 모아서 다시 로딩은 한번만 한다.
+    public List<MemberTeamDto> fillTeamNames(List<MemberTeamDto> content) {
+        Snapshot current = current();
+        for (MemberTeamDto memberTeamDto : content) {
+            Long teamId = memberTeamDto.getTeamId();
+            if (teamId != null && !current.teamNameById.containsKey(teamId)) {
+                current = reloadAfterMiss(current);
+                break;
+            }
+        }
+        for (MemberTeamDto memberTeamDto : content) {
+            Long teamId = memberTeamDto.getTeamId();
+            memberTeamDto.setTeamName(teamId != null ? current.teamNameById.get(teamId) : null);
+        }
+        return content;
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /*
+        현재 트랜잭션에서 팀이 변경됐다. (TeamChangeListener)
+        이 트랜잭션이 끝날때까지는 트랜잭션 안에서 로딩한 스냅샷을 쓴다. 다음 조회시 flush 되면서 변경이 보인다.
+    */
+    public void changedInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        LocalSnapshot local = (LocalSnapshot) TransactionSynchronizationManager.getResource(this);
+        if (local == null) {
+            local = new LocalSnapshot();
+            TransactionSynchronizationManager.bindResource(this, local);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TeamNameDictionary.this);
+                    //커밋된 변경은 다른 트랜잭션에서도 보이도록
+                    invalidate();
+                }
+            });
+        }
+        local.snapshot = null;
+    }
+
+    private Snapshot current() {
+        LocalSnapshot local = (LocalSnapshot) TransactionSynchronizationManager.getResource(this);
+        if (local != null) {
+            if (local.snapshot == null) {
+                local.snapshot = load(version.get());
+            }
+            return local.snapshot;
+        }
+        Snapshot current = snapshot;
+        if (isStale(current)) {
+            current = reload();
+        }
+        return current;
+    }
+
+    private boolean isStale(Snapshot current) {
+        return current == null
+                || current.version != version.get()
+                || System.nanoTime() - current.loadedAt > refreshIntervalNanos;
+    }
+
+    private Snapshot reloadAfterMiss(Snapshot current) {
+        //트랜잭션 스냅샷은 이미 트랜잭션에서 보이는 팀을 모두 담고 있다.
+        if (TransactionSynchronizationManager.getResource(this) != null
+                || System.nanoTime() - current.loadedAt < MISS_RELOAD_INTERVAL_NANOS) {
+            return current;
+        }
+        invalidate();
+        return reload();
+    }
+
+    private Snapshot reload() {
+        synchronized (reloadLock) {
+            Snapshot current = snapshot;
+            if (!isStale(current)) {
+                //기다리는 동안 다른 스레드가 로딩했다.
+                return current;
+            }
+            long loadVersion = version.get();
+            Snapshot loaded = reloadTransaction.execute(status -> load(loadVersion));
+            snapshot = loaded;
+            return loaded;
+        }
+    }
+
+    private Snapshot load(long loadVersion) {
+        List<Tuple> teams = readOnly(queryFactory
+                .select(team.id, team.name)
+                .from(team))
+                .fetch();
+
+        Map<String, List<Long>> teamIdsByName = new HashMap<>();
+        Map<Long, String> teamNameById = new HashMap<>();
+        for (Tuple tuple : teams) {
+            Long teamId = tuple.get(team.id);
+            String teamName = tuple.get(team.name);
+            teamNameById.put(teamId, teamName);
+            if (teamName != null) {
+                teamIdsByName.computeIfAbsent(teamName, name -> new ArrayList<>()).add(teamId);
+            }
+        }
+        return new Snapshot(loadVersion, teamIdsByName, teamNameById);
+    }
+
+    private static class LocalSnapshot {
+        private Snapshot snapshot;
+    }
+
+    private static class Snapshot {
+        private final long version;
+        private final long loadedAt = System.nanoTime();
+        private final Map<String, List<Long>> teamIdsByName;
+        private final Map<Long, String> teamNameById;
+
+        private Snapshot(long version, Map<String, List<Long>> teamIdsByName, Map<Long, String> teamNameById) {
+            this.version = version;
+            this.teamIdsByName = teamIdsByName;
+            this.teamNameById = teamNameById;
+        }
+    }
+}
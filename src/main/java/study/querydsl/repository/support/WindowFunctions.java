@@ -0,0 +1,67 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+
+/*
+    WindowFunctionContributor 에 등록한 윈도우 함수를 Querydsl 식으로 만든다.
+
+    select(member.username, WindowFunctions.avgOverPartition(member.age, member.team.id))
+        -> select m.username, avg(m.age) over (partition by m.team_id) from member m
+
+    상관 서브쿼리(select avg(age) from member where team_id = m.team_id)와 달리 행마다 다시 계산하지 않고 한번에 구한다.
+*/
+public final class WindowFunctions {
+
+    private WindowFunctions() {
+    }
+
+    //avg(value) over ()
+    public static NumberExpression<Double> avgOver(Expression<? extends Number> value) {
+        return Expressions.numberTemplate(Double.class, "avg_over({0})", value);
+    }
+
+    //avg(value) over (partition by partition)
+    public static NumberExpression<Double> avgOverPartition(Expression<? extends Number> value, Expression<?> partition) {
+        return Expressions.numberTemplate(Double.class, "avg_over_partition({0}, {1})", value, partition);
+    }
+
+    public static <T extends Number & Comparable<?>> NumberExpression<T> maxOverPartition(Expression<T> value, Expression<?> partition) {
+        return Expressions.numberTemplate(value.getType(), "max_over_partition({0}, {1})", value, partition);
+    }
+
+    public static <T extends Number & Comparable<?>> NumberExpression<T> minOverPartition(Expression<T> value, Expression<?> partition) {
+        return Expressions.numberTemplate(value.getType(), "min_over_partition({0}, {1})", value, partition);
+    }
+
+    public static NumberExpression<Long> sumOverPartition(Expression<? extends Number> value, Expression<?> partition) {
+        return Expressions.numberTemplate(Long.class, "sum_over_partition({0}, {1})", value, partition);
+    }
+
+    //count(*) over (partition by partition)
+    public static NumberExpression<Long> countOverPartition(Expression<?> partition) {
+        return Expressions.numberTemplate(Long.class, "count_over_partition({0})", partition);
+    }
+
+    //rank() over (order by ...), 정렬 방향은 order 를 따른다.
+    public static NumberExpression<Long> rankOver(OrderSpecifier<?> order) {
+        return Expressions.numberTemplate(Long.class,
+                order.isAscending() ? "rank_over({0})" : "rank_over_desc({0})", order.getTarget());
+    }
+
+    //rank() over (partition by partition order by ...)
+    public static NumberExpression<Long> rankOverPartition(Expression<?> partition, OrderSpecifier<?> order) {
+        return Expressions.numberTemplate(Long.class,
+                order.isAscending() ? "rank_over_partition({0}, {1})" : "rank_over_partition_desc({0}, {1})",
+                partition, order.getTarget());
+    }
+
+    //row_number() over (partition by partition order by ...)
+    public static NumberExpression<Long> rowNumberOverPartition(Expression<?> partition, OrderSpecifier<?> order) {
+        return Expressions.numberTemplate(Long.class,
+                order.isAscending() ? "row_number_over_partition({0}, {1})" : "row_number_over_partition_desc({0}, {1})",
+                partition, order.getTarget());
+    }
+}
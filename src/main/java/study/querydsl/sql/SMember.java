@@ -0,0 +1,63 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.ForeignKey;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/*
+    querydsl-sql 용 MEMBER 테이블 메타 모델. (JPA 엔티티의 QMember 와 별개)
+    MetaDataExporter 가 만드는 형태 그대로이고, 스키마는 Member 엔티티(ddl-auto)가 기준이다.
+    엔티티 컬럼을 바꾸면 같이 바꿔야 한다. (MemberSqlRepositoryTest 가 실제 스키마와 컬럼 목록 / 타입 / 크기 / null 허용을 비교)
+*/
+public class SMember extends RelationalPathBase<SMember> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final SMember member = new SMember("m");
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final StringPath username = createString("username");
+
+    public final NumberPath<Integer> age = createNumber("age", Integer.class);
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public final NumberPath<Long> version = createNumber("version", Long.class);
+
+    public final PrimaryKey<SMember> primary = createPrimaryKey(id);
+
+    public final ForeignKey<STeam> teamFk = createForeignKey(teamId, "ID");
+
+    public SMember(String variable) {
+        super(SMember.class, forVariable(variable), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(Path<? extends SMember> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(PathMetadata metadata) {
+        super(SMember.class, metadata, "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(id, ColumnMetadata.named("ID").ofType(Types.BIGINT).withSize(19).notNull());
+        addMetadata(username, ColumnMetadata.named("USERNAME").ofType(Types.VARCHAR).withSize(255));
+        addMetadata(age, ColumnMetadata.named("AGE").ofType(Types.INTEGER).withSize(10).notNull());
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").ofType(Types.BIGINT).withSize(19));
+        addMetadata(version, ColumnMetadata.named("VERSION").ofType(Types.BIGINT).withSize(19).notNull());
+    }
+}
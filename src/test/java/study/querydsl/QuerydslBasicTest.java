@@ -8,6 +8,7 @@ import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.CaseBuilder;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +22,8 @@ import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.DirectProjection;
+import study.querydsl.repository.support.WindowFunctions;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -402,6 +405,46 @@ public class QuerydslBasicTest {
                 .fetch();
     }
 
+    /*
+     * 서브쿼리 대신 윈도우 함수 : 팀 평균 나이 / 팀 안 나이 순위를 한번의 조회로 구한다.
+     * */
+    @Test
+    void windowFunction() {
+
+        NumberExpression<Double> teamAgeAvg = WindowFunctions.avgOverPartition(member.age, member.team.id);
+        NumberExpression<Long> teamAgeRank = WindowFunctions.rankOverPartition(member.team.id, member.age.desc());
+
+        List<Tuple> result = queryFactory
+                .select(member.username, teamAgeAvg, teamAgeRank)
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).extracting(tuple -> tuple.get(member.username)).containsExactly("member1", "member2", "member3", "member4");
+        assertThat(result).extracting(tuple -> tuple.get(teamAgeAvg)).containsExactly(15.0, 15.0, 35.0, 35.0);
+        assertThat(result).extracting(tuple -> tuple.get(teamAgeRank)).containsExactly(2L, 1L, 2L, 1L);
+    }
+
+    /*
+     * subQuery2 를 윈도우 함수로 : 평균 이상인 회원.
+     * */
+    @Test
+    void windowFunctionAvg() {
+
+        NumberExpression<Double> ageAvg = WindowFunctions.avgOver(member.age);
+
+        List<Tuple> result = queryFactory
+                .select(member.age, ageAvg)
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result)
+                .filteredOn(tuple -> tuple.get(member.age) >= tuple.get(ageAvg))
+                .extracting(tuple -> tuple.get(member.age))
+                .containsExactly(30, 40);
+    }
+
     @Test
     void basicCase() {
 
@@ -541,6 +584,26 @@ public class QuerydslBasicTest {
         }
     }
 
+    @Test
+    void findDtoByDirectProjection() {
+        List<MemberDto> fetch = queryFactory
+                .select(DirectProjection.of(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(fetch).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(fetch).extracting("age").containsExactly(10, 20, 30, 40);
+
+        List<UserDto> fetch2 = queryFactory
+                .select(DirectProjection.of(UserDto.class, member.username, member.age))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+
+        assertThat(fetch2).extracting("name").containsExactly("member1");
+    }
+
     @Test
     void dynamicQuery_BooleanBulider() {
         String usernameParam = "member1";
@@ -0,0 +1,134 @@
+package study.querydsl.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.config.BulkheadProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.index.MemberBitmapIndex;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchBulkheadsTest {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    //비트맵 인덱스 없음 : username 조건만 selective
+    SearchCostClassifier classifier = new SearchCostClassifier(
+            new StaticListableBeanFactory().getBeanProvider(MemberBitmapIndex.class), 1_000);
+    SearchBulkheads bulkheads;
+
+    @AfterEach
+    void tearDown() {
+        if (bulkheads != null) {
+            bulkheads.shutdown();
+        }
+    }
+
+    @Test
+    void classify() {
+        MemberSearchCondition username = new MemberSearchCondition();
+        username.setUsername("member1");
+        assertThat(classifier.classify(username)).isEqualTo(SearchCost.SELECTIVE);
+
+        MemberSearchCondition usernames = new MemberSearchCondition();
+        usernames.setUsernames(Arrays.asList("member1", "member2"));
+        assertThat(classifier.classify(usernames, PageRequest.of(0, 20))).isEqualTo(SearchCost.SELECTIVE);
+
+        //결과 크기를 모르면 scan
+        MemberSearchCondition ageOnly = new MemberSearchCondition();
+        ageOnly.setAgeGoe(10);
+        assertThat(classifier.classify(ageOnly)).isEqualTo(SearchCost.SCAN);
+        assertThat(classifier.classify(new MemberSearchCondition(), PageRequest.of(0, 20))).isEqualTo(SearchCost.SCAN);
+
+        //batch : 조건 하나라도 scan 이면 scan, 모두 selective 여도 합이 크면 scan
+        assertThat(classifier.classify(Arrays.asList(username, usernames))).isEqualTo(SearchCost.SELECTIVE);
+        assertThat(classifier.classify(Arrays.asList(username, ageOnly))).isEqualTo(SearchCost.SCAN);
+        assertThat(classifier.classify(Collections.nCopies(600, usernames))).isEqualTo(SearchCost.SCAN);
+    }
+
+    @Test
+    void scanSaturationDoesNotBlockSelective() throws Exception {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setScan(new BulkheadProperties.Compartment(1, 1, 1, Duration.ofSeconds(1)));
+        bulkheads = new SearchBulkheads(properties, classifier, meterRegistry);
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = bulkheads.submit(SearchCost.SCAN, () -> {
+            running.countDown();
+            await(release);
+            return "slow";
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        //실행 중 1 + 대기 1 을 넘으면 거절
+        CompletableFuture<String> queued = bulkheads.submit(SearchCost.SCAN, () -> "queued");
+        CompletableFuture<String> rejected = bulkheads.submit(SearchCost.SCAN, () -> "rejected");
+        assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(BulkheadFullException.class);
+        assertThat(gauge("member.search.bulkhead.queue", "scan")).isEqualTo(1);
+
+        //scan 이 막혀 있어도 selective 는 바로 실행된다.
+        assertThat(bulkheads.submit(SearchCost.SELECTIVE, () -> "fast").get(1, TimeUnit.SECONDS)).isEqualTo("fast");
+
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+        assertThat(rejections("scan", "queue")).isEqualTo(1);
+        assertThat(rejections("selective", "queue")).isZero();
+    }
+
+    @Test
+    void connectionQuota() throws Exception {
+        BulkheadProperties properties = new BulkheadProperties();
+        //스레드는 2개지만 커넥션은 1개
+        properties.setScan(new BulkheadProperties.Compartment(2, 10, 1, Duration.ofMillis(50)));
+        bulkheads = new SearchBulkheads(properties, classifier, meterRegistry);
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> holding = bulkheads.submit(SearchCost.SCAN, () -> {
+            running.countDown();
+            await(release);
+            return "holding";
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> waiting = bulkheads.submit(SearchCost.SCAN, () -> "waiting");
+        assertThatThrownBy(() -> waiting.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(BulkheadFullException.class);
+        assertThat(rejections("scan", "connections")).isEqualTo(1);
+
+        release.countDown();
+        assertThat(holding.get(5, TimeUnit.SECONDS)).isEqualTo("holding");
+        //할당이 반납되면 다시 실행된다.
+        assertThat(bulkheads.submit(SearchCost.SCAN, () -> "next").get(5, TimeUnit.SECONDS)).isEqualTo("next");
+    }
+
+    private double gauge(String name, String costClass) {
+        return meterRegistry.get(name).tag("class", costClass).gauge().value();
+    }
+
+    private double rejections(String costClass, String reason) {
+        return meterRegistry.get("member.search.bulkhead.rejected").tag("class", costClass).tag("reason", reason).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
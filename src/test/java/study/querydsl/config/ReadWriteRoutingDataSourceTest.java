@@ -0,0 +1,161 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//인메모리 H2 3개(primary, replica0, replica1)로 라우팅만 확인한다. 각 DB 는 database() 로 구분한다.
+class ReadWriteRoutingDataSourceTest {
+
+    private final List<ReadWriteRoutingDataSource> routingDataSources = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        routingDataSources.forEach(ReadWriteRoutingDataSource::close);
+    }
+
+    @Test
+    void roundRobin() {
+        Fixture fixture = new Fixture(ReadWriteRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ZERO);
+
+        assertThat(fixture.databaseInReadWriteTransaction()).isEqualTo("PRIMARY");
+        assertThat(Arrays.asList(fixture.databaseInReadOnlyTransaction(), fixture.databaseInReadOnlyTransaction(),
+                fixture.databaseInReadOnlyTransaction())).containsExactly("REPLICA0", "REPLICA1", "REPLICA0");
+        //트랜잭션 밖은 primary
+        assertThat(fixture.jdbcTemplate.queryForObject("select database()", String.class)).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    void leastConnections() throws Exception {
+        Fixture fixture = new Fixture(ReadWriteRoutingDataSource.Balancing.LEAST_CONNECTIONS, Duration.ZERO);
+
+        assertThat(fixture.databaseInReadOnlyTransaction()).isEqualTo("REPLICA0");
+        //replica0 의 커넥션을 잡고 있으면 replica1 로 간다.
+        try (Connection held = fixture.replicas.get(0).getConnection()) {
+            assertThat(fixture.databaseInReadOnlyTransaction()).isEqualTo("REPLICA1");
+        }
+        assertThat(fixture.databaseInReadOnlyTransaction()).isEqualTo("REPLICA0");
+    }
+
+    @Test
+    void readYourWrites() throws Exception {
+        Fixture fixture = new Fixture(ReadWriteRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ofMillis(300));
+
+        assertThat(fixture.databaseInReadOnlyTransaction()).startsWith("REPLICA");
+        //쓰기 커밋 직후에는 읽기도 primary
+        fixture.databaseInReadWriteTransaction();
+        assertThat(fixture.databaseInReadOnlyTransaction()).isEqualTo("PRIMARY");
+
+        Thread.sleep(400);
+        assertThat(fixture.databaseInReadOnlyTransaction()).startsWith("REPLICA");
+    }
+
+    //open-in-view 처럼 요청 동안 EntityManager 하나를 묶어 두고 읽기 전용 -> 쓰기 트랜잭션을 실행한다.
+    @Test
+    void sameSessionReadOnlyThenReadWrite() {
+        Fixture fixture = new Fixture(ReadWriteRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ZERO);
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(fixture.dataSource);
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setPackagesToScan(ReadWriteRoutingDataSourceTest.class.getPackage().getName());
+        factoryBean.getJpaPropertyMap().put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+        factoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            assertThat(readOnly.execute(status -> database(entityManager))).isEqualTo("REPLICA0");
+            //앞 트랜잭션의 replica 커넥션을 이어 쓰지 않는다.
+            assertThat(readWrite.execute(status -> database(entityManager))).isEqualTo("PRIMARY");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+            factoryBean.destroy();
+        }
+    }
+
+    @Test
+    void connectionHandlingCheck() {
+        assertThatThrownBy(() -> RoutingDataSourceConfig.checkConnectionHandling(true, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> RoutingDataSourceConfig.checkConnectionHandling(true, "DELAYED_ACQUISITION_AND_HOLD"))
+                .isInstanceOf(IllegalStateException.class);
+        RoutingDataSourceConfig.checkConnectionHandling(false, null);
+        RoutingDataSourceConfig.checkConnectionHandling(true, "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    private static String database(EntityManager entityManager) {
+        return (String) entityManager.createNativeQuery("select database()").getSingleResult();
+    }
+
+    private class Fixture {
+        final List<HikariDataSource> replicas = new ArrayList<>();
+        final DataSource dataSource;
+        final JdbcTemplate jdbcTemplate;
+        final TransactionTemplate readWrite;
+        final TransactionTemplate readOnly;
+
+        Fixture(ReadWriteRoutingDataSource.Balancing balancing, Duration readYourWritesWindow) {
+            HikariDataSource primary = memory("primary");
+            replicas.add(memory("replica0"));
+            replicas.add(memory("replica1"));
+            ReadWriteRoutingDataSource routingDataSource =
+                    new ReadWriteRoutingDataSource(primary, replicas, balancing, readYourWritesWindow);
+            routingDataSource.afterPropertiesSet();
+            routingDataSources.add(routingDataSource);
+
+            dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            readWrite = new TransactionTemplate(transactionManager);
+            readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+        }
+
+        String databaseInReadWriteTransaction() {
+            return readWrite.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+        }
+
+        String databaseInReadOnlyTransaction() {
+            return readOnly.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+        }
+
+        private HikariDataSource memory(String name) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+            dataSource.setUsername("sa");
+            dataSource.setMaximumPoolSize(2);
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeanPageJsonSerializerTest {
+
+    ObjectMapper defaultMapper = new ObjectMapper();
+    ObjectMapper leanMapper = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(new LeanPageJsonSerializer())
+            .addSerializer(new MemberTeamDtoJsonSerializer()));
+
+    @Test
+    void serialize() throws Exception {
+        List<MemberTeamDto> content = Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, null, null));
+
+        JsonNode page = leanMapper.readTree(leanMapper.writeValueAsString(
+                new PageImpl<>(content, PageRequest.of(1, 2), 10)));
+
+        assertThat(page.fieldNames()).toIterable()
+                .containsExactly("content", "page", "size", "numberOfElements", "totalElements", "totalPages");
+        assertThat(page.get("page").asInt()).isEqualTo(1);
+        assertThat(page.get("totalPages").asInt()).isEqualTo(5);
+
+        //요소는 기본 직렬화와 같은 형태
+        assertThat(page.get("content")).isEqualTo(defaultMapper.valueToTree(content));
+    }
+}
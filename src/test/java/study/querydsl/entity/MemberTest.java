@@ -1,14 +1,18 @@
 package study.querydsl.entity;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @Transactional
@@ -17,6 +21,9 @@ class MemberTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    EntityManagerFactory emf;
+
     @Test
     void testEntity() {
         Team teamA = new Team("teamA");
@@ -42,4 +49,29 @@ class MemberTest {
             System.out.println("member = " + member.getTeam());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void teamBatchFetch() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        em.flush();
+        em.clear();
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+
+        //회원 조회 1회 + 팀 프록시 초기화 1회(in 절 배치)
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
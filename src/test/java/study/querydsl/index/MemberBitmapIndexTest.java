@@ -0,0 +1,92 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MemberRow;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//쓰기 트랜잭션 안에서는 count 가 답하지 않으므로 테스트 트랜잭션을 쓰지 않는다. 회원은 커밋 이벤트로만 넣는다.
+@SpringBootTest
+class MemberBitmapIndexTest {
+
+    static final long ID = 9_100_000_000L;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBitmapIndex bitmapIndex;
+
+    @Test
+    void count() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long teamId = transaction.execute(status -> {
+            Team team = new Team("bitmapTeam");
+            entityManager.persist(team);
+            return team.getId();
+        });
+        //지울때 비트맵 위치를 알아야 하므로 현재 상태를 들고 있는다.
+        MemberRow[] rows = new MemberRow[10];
+        try {
+            for (int i = 0; i < 10; i++) {
+                rows[i] = new MemberRow(ID + i, "bitmap" + i, i * 10, i % 2 == 0 ? teamId : null, 0);
+                bitmapIndex.onMemberInserted(rows[i]);
+            }
+
+            MemberSearchCondition team = new MemberSearchCondition();
+            team.setTeamName("bitmapTeam");
+            assertThat(bitmapIndex.count(team)).hasValue(5);
+
+            MemberSearchCondition teamAge = new MemberSearchCondition();
+            teamAge.setTeamName("bitmapTeam");
+            teamAge.setAgeGoe(20);
+            teamAge.setAgeLoe(60);
+            //20, 40, 60
+            assertThat(bitmapIndex.count(teamAge)).hasValue(3);
+
+            //bitmap9(90살, 팀 없음)를 팀으로, 40살로 옮긴다.
+            MemberRow moved = new MemberRow(ID + 9, "bitmap9", 40, teamId, 1);
+            bitmapIndex.onMemberUpdated(rows[9], moved);
+            rows[9] = moved;
+            assertThat(bitmapIndex.count(teamAge)).hasValue(4);
+
+            bitmapIndex.onMemberDeleted(rows[0]);
+            rows[0] = null;
+            assertThat(bitmapIndex.count(team)).hasValue(5);
+
+            //늦게 도착한 이전 상태(version 0)는 무시한다. before 가 틀려도 반영된 상태에서 지운다.
+            bitmapIndex.onMemberUpdated(rows[1], new MemberRow(ID + 9, "bitmap9", 90, null, 0));
+            assertThat(bitmapIndex.count(teamAge)).hasValue(4);
+            bitmapIndex.onMemberUpdated(rows[1], new MemberRow(ID + 9, "bitmap9", 70, teamId, 2));
+            assertThat(bitmapIndex.count(teamAge)).hasValue(3);
+            assertThat(bitmapIndex.count(team)).hasValue(5);
+
+            //삭제 뒤에 도착한 insert 로 되살리지 않는다.
+            bitmapIndex.onMemberInserted(new MemberRow(ID, "bitmap0", 0, teamId, 0));
+            assertThat(bitmapIndex.count(team)).hasValue(5);
+
+            //username 조건은 SQL count 로 넘긴다.
+            MemberSearchCondition username = new MemberSearchCondition();
+            username.setUsername("bitmap1");
+            assertThat(bitmapIndex.count(username)).isEmpty();
+        } finally {
+            for (MemberRow row : rows) {
+                if (row != null) {
+                    bitmapIndex.onMemberDeleted(row);
+                }
+            }
+            transaction.executeWithoutResult(status -> entityManager.remove(entityManager.find(Team.class, teamId)));
+        }
+    }
+}
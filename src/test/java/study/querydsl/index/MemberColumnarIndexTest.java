@@ -0,0 +1,112 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MemberRow;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberColumnarIndexTest {
+
+    //DB 에 없는 회원을 커밋 이벤트로만 넣는다. 삭제한 id 는 인덱스가 기억하므로 테스트마다 새 id 를 쓴다.
+    static final AtomicLong NEXT_ID = new AtomicLong(9_000_000_000L);
+
+    final List<Long> ids = new ArrayList<>();
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberColumnarIndex columnarIndex;
+
+    @AfterEach
+    void removeRows() {
+        for (Long id : ids) {
+            columnarIndex.onMemberDeleted(new MemberRow(id, null, 0, null, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void search() {
+        Team team = new Team("columnarTeam");
+        entityManager.persist(team);
+        entityManager.flush();
+
+        long id1 = newId();
+        long id2 = newId();
+        columnarIndex.onMemberInserted(new MemberRow(id1, "columnar1", 10, team.getId(), 0));
+        columnarIndex.onMemberInserted(new MemberRow(id2, "columnar2", 20, team.getId(), 0));
+        columnarIndex.onMemberInserted(new MemberRow(newId(), "columnar3", 30, null, 0));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("columnarTeam");
+        condition.setAgeGoe(15);
+        assertThat(columnarIndex.search(condition)).extracting("username").containsExactly("columnar2");
+        assertThat(columnarIndex.search(condition)).extracting("teamName").containsExactly("columnarTeam");
+
+        columnarIndex.onMemberUpdated(null, new MemberRow(id1, "columnar1", 40, team.getId(), 1));
+        columnarIndex.onMemberDeleted(new MemberRow(id2, "columnar2", 20, team.getId(), 0));
+        assertThat(columnarIndex.search(condition)).extracting("memberId").containsExactly(id1);
+
+        //쓰기 트랜잭션 안에서는 DB 로 조회한다.
+        assertThat(columnarIndex.canServe()).isFalse();
+    }
+
+    @Test
+    void lateEventsDoNotOverwriteNewerState() {
+        long id = newId();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("columnarLate");
+
+        //커밋 순서 insert(v0) -> update(v1), 이벤트는 반대로 도착
+        columnarIndex.onMemberUpdated(null, new MemberRow(id, "columnarLate", 20, null, 1));
+        columnarIndex.onMemberInserted(new MemberRow(id, "columnarLate", 10, null, 0));
+        assertThat(columnarIndex.search(condition)).extracting("age").containsExactly(20);
+
+        //삭제 후에 도착한 이전 update 로 되살리지 않는다.
+        columnarIndex.onMemberDeleted(new MemberRow(id, "columnarLate", 20, null, 1));
+        columnarIndex.onMemberUpdated(null, new MemberRow(id, "columnarLate", 20, null, 1));
+        assertThat(columnarIndex.search(condition)).isEmpty();
+    }
+
+    @Test
+    void unusedUsernamesLeaveThePool() {
+        int before = columnarIndex.stats().getDistinctUsernames();
+        long id1 = newId();
+        long id2 = newId();
+        columnarIndex.onMemberInserted(new MemberRow(id1, "columnarPooled", 10, null, 0));
+        columnarIndex.onMemberInserted(new MemberRow(id2, "columnarPooled", 20, null, 0));
+        assertThat(columnarIndex.stats().getDistinctUsernames()).isEqualTo(before + 1);
+
+        //id2 가 아직 쓰고 있으므로 남는다.
+        columnarIndex.onMemberUpdated(null, new MemberRow(id1, "columnarRenamed", 10, null, 1));
+        assertThat(columnarIndex.stats().getDistinctUsernames()).isEqualTo(before + 2);
+
+        columnarIndex.onMemberDeleted(new MemberRow(id2, "columnarPooled", 20, null, 0));
+        assertThat(columnarIndex.stats().getDistinctUsernames()).isEqualTo(before + 1);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("columnarPooled");
+        assertThat(columnarIndex.search(condition)).isEmpty();
+
+        columnarIndex.onMemberDeleted(new MemberRow(id1, "columnarRenamed", 10, null, 1));
+        assertThat(columnarIndex.stats().getDistinctUsernames()).isEqualTo(before);
+    }
+
+    private long newId() {
+        long id = NEXT_ID.incrementAndGet();
+        ids.add(id);
+        return id;
+    }
+}
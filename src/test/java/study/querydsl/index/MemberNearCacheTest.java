@@ -0,0 +1,81 @@
+package study.querydsl.index;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//캐시는 커밋된 변경으로 무효화되므로 테스트 트랜잭션 없이 커밋하고 직접 지운다.
+@SpringBootTest
+class MemberNearCacheTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberNearCache nearCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from Member m where m.username like 'nearCache%'").executeUpdate();
+            entityManager.createQuery("delete from Team t where t.name like 'nearCache%'").executeUpdate();
+        });
+        nearCache.invalidateAll();
+    }
+
+    @Test
+    void findById() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long memberId = transaction.execute(status -> {
+            Team team = new Team("nearCacheTeam");
+            entityManager.persist(team);
+            Member member = new Member("nearCache1", 10, team);
+            entityManager.persist(member);
+            return member.getId();
+        });
+
+        double hitsBefore = hits();
+        MemberTeamDto first = nearCache.findById(memberId).get();
+        assertThat(first.getTeamName()).isEqualTo("nearCacheTeam");
+        //두번째는 캐시에서, 조회할때마다 새 DTO
+        assertThat(nearCache.findById(memberId).get()).isEqualTo(first).isNotSameAs(first);
+        assertThat(hits() - hitsBefore).isEqualTo(1);
+
+        //다른 회원의 무효화는 캐시된 회원에 영향이 없다.
+        nearCache.invalidate(-1L);
+        nearCache.findById(memberId);
+        assertThat(hits() - hitsBefore).isEqualTo(2);
+
+        //커밋된 변경으로 무효화
+        transaction.executeWithoutResult(status -> entityManager.find(Member.class, memberId).setAge(20));
+        assertThat(nearCache.findById(memberId).get().getAge()).isEqualTo(20);
+
+        transaction.executeWithoutResult(status -> entityManager.remove(entityManager.find(Member.class, memberId)));
+        assertThat(nearCache.findById(memberId)).isEmpty();
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", MemberNearCache.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count();
+    }
+}
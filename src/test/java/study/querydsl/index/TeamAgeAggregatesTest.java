@@ -0,0 +1,90 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MemberRow;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//집계는 커밋된 데이터만 반영하므로 테스트 트랜잭션 없이 커밋하고 직접 지운다.
+@SpringBootTest
+class TeamAgeAggregatesTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamAgeAggregates teamAgeAggregates;
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from Member m where m.username like 'aggregate%'").executeUpdate();
+            entityManager.createQuery("delete from Team t where t.name like 'aggregate%'").executeUpdate();
+        });
+        teamAgeAggregates.reconcile();
+    }
+
+    @Test
+    void incrementalUpdates() {
+        teamAgeAggregates.reconcile();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long[] ids = transaction.execute(status -> {
+            Team teamA = new Team("aggregateTeamA");
+            Team teamB = new Team("aggregateTeamB");
+            entityManager.persist(teamA);
+            entityManager.persist(teamB);
+            Member member1 = new Member("aggregate1", 10, teamA);
+            Member member2 = new Member("aggregate2", 20, teamA);
+            Member member3 = new Member("aggregate3", 30, teamB);
+            entityManager.persist(member1);
+            entityManager.persist(member2);
+            entityManager.persist(member3);
+            return new Long[]{member1.getId(), member2.getId(), member3.getId(), teamB.getId()};
+        });
+
+        //나이 변경, 팀 변경, 삭제
+        transaction.executeWithoutResult(status -> {
+            entityManager.find(Member.class, ids[0]).setAge(15);
+            entityManager.find(Member.class, ids[1]).changeTeam(entityManager.find(Team.class, ids[3]));
+            entityManager.remove(entityManager.find(Member.class, ids[2]));
+        });
+
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("aggregateTeamA");
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("aggregateTeamB");
+        teamB.setAgeLoe(25);
+
+        assertThat(teamAgeAggregates.statistics(teamA).get().getTotal()).extracting("count", "ageMax").containsExactly(1L, 15);
+        assertThat(teamAgeAggregates.statistics(teamB).get().getTotal()).extracting("count", "ageMax").containsExactly(1L, 20);
+
+        //이벤트로 맞춰져 있으므로 reconcile 해도 차이가 없다.
+        assertThat(teamAgeAggregates.reconcile()).isZero();
+    }
+
+    @Test
+    void missingEventFallsBackUntilReconciled() {
+        teamAgeAggregates.reconcile();
+
+        //이전 상태를 모르는 변경
+        teamAgeAggregates.onMemberUpdated(null, new MemberRow(Long.MAX_VALUE, "aggregateUnknown", 10, null, 1));
+        assertThat(teamAgeAggregates.statistics(new MemberSearchCondition())).isEmpty();
+
+        teamAgeAggregates.retryReconcile();
+        assertThat(teamAgeAggregates.statistics(new MemberSearchCondition())).isPresent();
+    }
+}
@@ -0,0 +1,120 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgeRankDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.TeamNameDictionary;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Transactional
+class MemberAnalyticsRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberAnalyticsRepository memberAnalyticsRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TeamNameDictionary teamNameDictionary;
+
+    @Test
+    void aboveTeamAverageAge() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+        entityManager.persist(new Member("member5", 45, teamB));
+        entityManager.persist(new Member("member6", 50));
+        //윈도우 함수 경로는 JdbcTemplate 으로 조회한다.
+        entityManager.flush();
+
+        MemberAnalyticsRepository window = new MemberAnalyticsRepository(entityManager, jdbcTemplate, teamNameDictionary, "window");
+        MemberAnalyticsRepository correlated = new MemberAnalyticsRepository(entityManager, jdbcTemplate, teamNameDictionary, "correlated");
+
+        for (MemberAnalyticsRepository repository : new MemberAnalyticsRepository[]{window, correlated, memberAnalyticsRepository}) {
+            List<MemberAgeRankDto> result = repository.aboveTeamAverageAge(new MemberSearchCondition());
+
+            //teamA 평균 15, teamB 평균 38.3.. , 팀 없는 member6 은 제외
+            assertThat(result).extracting("username").containsExactly("member2", "member5", "member4");
+            assertThat(result).extracting("teamName").containsExactly("teamA", "teamB", "teamB");
+            assertThat(result).extracting("teamAgeRank").containsExactly(1L, 1L, 2L);
+            assertThat(result.get(0).getTeamAgeAvg()).isEqualTo(15.0);
+            //정수 평균(38)으로 잘리지 않는다.
+            assertThat(result.get(1).getTeamAgeAvg()).isCloseTo(115 / 3.0, within(0.0001));
+
+            //평균은 조건에 맞는 회원끼리 계산한다. (teamB 35 이상 : 40, 45 -> 평균 42.5)
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamB");
+            condition.setAgeGoe(35);
+            List<MemberAgeRankDto> filtered = repository.aboveTeamAverageAge(condition);
+            assertThat(filtered).extracting("username").containsExactly("member5");
+            assertThat(filtered.get(0).getTeamAgeAvg()).isEqualTo(42.5);
+        }
+    }
+
+    @Test
+    void topNPerTeam() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamA));
+        entityManager.persist(new Member("member4", 40, teamB));
+        entityManager.persist(new Member("member5", 40, teamB));
+        entityManager.persist(new Member("member6", 50, teamB));
+        entityManager.persist(new Member("member7", 60));
+        //윈도우 함수 경로는 JdbcTemplate 으로 조회한다.
+        entityManager.flush();
+
+        MemberAnalyticsRepository window = new MemberAnalyticsRepository(entityManager, jdbcTemplate, teamNameDictionary, "window");
+        MemberAnalyticsRepository correlated = new MemberAnalyticsRepository(entityManager, jdbcTemplate, teamNameDictionary, "correlated");
+
+        for (MemberAnalyticsRepository repository : new MemberAnalyticsRepository[]{window, correlated, memberAnalyticsRepository}) {
+            //정렬이 없으면 나이 많은 순, 같은 나이는 memberId 순
+            List<MemberTeamDto> oldest = repository.topNPerTeam(new MemberSearchCondition(), 2, Sort.unsorted());
+            assertThat(oldest).extracting("username").containsExactly("member3", "member2", "member6", "member4");
+            assertThat(oldest).extracting("teamName").containsExactly("teamA", "teamA", "teamB", "teamB");
+
+            List<MemberTeamDto> youngest = repository.topNPerTeam(new MemberSearchCondition(), 1, Sort.by("age"));
+            assertThat(youngest).extracting("username").containsExactly("member1", "member4");
+
+            //조건에 맞는 회원 안에서 자른다.
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeLoe(40);
+            List<MemberTeamDto> filtered = repository.topNPerTeam(condition, 1, Sort.by(Sort.Order.desc("age"), Sort.Order.desc("memberId")));
+            assertThat(filtered).extracting("username").containsExactly("member3", "member5");
+        }
+
+        assertThatThrownBy(() -> memberAnalyticsRepository.topNPerTeam(new MemberSearchCondition(), 0, Sort.unsorted()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberAnalyticsRepository.topNPerTeam(new MemberSearchCondition(), 1, Sort.by("teamName")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,179 @@
+package study.querydsl.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+import study.querydsl.dto.MemberTeamColumnsJsonWriter;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberJdbcRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberJdbcRepository memberJdbcRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void searchColumns() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+        entityManager.persist(new Member("member5", 50));
+        //JdbcTemplate 은 영속성 컨텍스트를 거치지 않는다.
+        entityManager.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        MemberTeamColumns columns = memberJdbcRepository.searchColumns(condition);
+        assertThat(columns.size()).isEqualTo(4);
+        assertThat(columns.username(0)).isEqualTo("member2");
+        assertThat(columns.teamName(0)).isEqualTo("teamA");
+        assertThat(columns.hasTeam(3)).isFalse();
+        assertThat(columns.teamName(3)).isNull();
+
+        List<String> usernames = new ArrayList<>();
+        columns.forEach(row -> usernames.add(row.username()));
+        assertThat(usernames).containsExactly("member2", "member3", "member4", "member5");
+
+        //같은 조건의 search 결과(DTO 목록)를 직렬화한 것과 같은 JSON
+        List<MemberTeamDto> dtos = memberJpaRepository.search(condition);
+        StringWriter json = new StringWriter();
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(json);
+        MemberTeamColumnsJsonWriter.write(columns, generator);
+        generator.flush();
+        assertThat(objectMapper.readTree(json.toString())).isEqualTo(objectMapper.valueToTree(dtos));
+
+        condition.setTeamName("teamB");
+        assertThat(memberJdbcRepository.searchColumns(condition).size())
+                .isEqualTo(memberJpaRepository.search(condition).size())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void searchBatch() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+        entityManager.persist(new Member("member5", 50));
+        entityManager.flush();
+
+        MemberSearchCondition teamBCondition = new MemberSearchCondition();
+        teamBCondition.setTeamName("teamB");
+        MemberSearchCondition ageCondition = new MemberSearchCondition();
+        ageCondition.setAgeGoe(40);
+        MemberSearchCondition unknownTeam = new MemberSearchCondition();
+        unknownTeam.setTeamName("teamC");
+        MemberSearchCondition sameAsTeamB = new MemberSearchCondition();
+        sameAsTeamB.setTeamName("teamB");
+
+        List<List<MemberTeamDto>> results = memberJdbcRepository.searchBatch(
+                Arrays.asList(teamBCondition, ageCondition, unknownTeam, sameAsTeamB));
+
+        assertThat(results).hasSize(4);
+        assertThat(results.get(0)).extracting("username").containsExactly("member3", "member4");
+        assertThat(results.get(1)).extracting("username").containsExactly("member4", "member5");
+        assertThat(results.get(1)).extracting("teamName").containsExactly("teamB", null);
+        assertThat(results.get(2)).isEmpty();
+        assertThat(results.get(3)).isEqualTo(results.get(0));
+
+        //조건별 결과는 search 와 같다.
+        assertThat(results.get(1)).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(ageCondition));
+    }
+
+    @Test
+    void searchBatchRowLimit() {
+        Team team = new Team("batchTeam");
+        entityManager.persist(team);
+        for (int i = 0; i <= MemberJdbcRepository.MAX_BATCH_ROWS; i++) {
+            entityManager.persist(new Member("batch" + i, i, team));
+        }
+        entityManager.flush();
+
+        MemberSearchCondition limited = new MemberSearchCondition();
+        limited.setTeamName("batchTeam");
+        limited.setAgeLoe(MemberJdbcRepository.MAX_BATCH_ROWS - 1);
+        assertThat(memberJdbcRepository.searchBatch(Collections.singletonList(limited)).get(0))
+                .hasSize(MemberJdbcRepository.MAX_BATCH_ROWS);
+
+        //조건 하나가 MAX_BATCH_ROWS 를 넘으면 거절한다.
+        MemberSearchCondition wholeTeam = new MemberSearchCondition();
+        wholeTeam.setTeamName("batchTeam");
+        assertThatThrownBy(() -> memberJdbcRepository.searchBatch(Arrays.asList(limited, wholeTeam)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void searchColumnsMultiValue() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+        entityManager.flush();
+
+        //패딩된 in 절
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernames(Arrays.asList("member1", "member2", "member4"));
+        condition.setTeamNames(Arrays.asList("teamB", "teamC"));
+        assertThat(memberJdbcRepository.searchColumns(condition).size()).isEqualTo(1);
+
+        //목록이 크면 배열 파라미터 하나로 조인한다.
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            usernames.add("member" + i);
+        }
+        MemberSearchCondition large = new MemberSearchCondition();
+        large.setUsernames(usernames);
+        large.setAgeGoe(20);
+        MemberTeamColumns columns = memberJdbcRepository.searchColumns(large);
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.username(0)).isEqualTo("member2");
+
+        MemberSearchCondition noTeam = new MemberSearchCondition();
+        noTeam.setTeamNames(Collections.singletonList("teamC"));
+        assertThat(memberJdbcRepository.searchColumns(noTeam).size()).isZero();
+    }
+}
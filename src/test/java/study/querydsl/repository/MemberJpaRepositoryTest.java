@@ -1,5 +1,8 @@
 package study.querydsl.repository;
 
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -8,8 +11,11 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.jdbc.StatementCount;
+import study.querydsl.repository.support.TeamNameDictionary;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,6 +30,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    TeamNameDictionary teamNameDictionary;
+
     @Test
     void basicTest() {
         Member member = new Member("member1", 10);
@@ -67,12 +76,59 @@ class MemberJpaRepositoryTest {
         condition.setAgeLoe(40);
         condition.setTeamName("teamB");
 
-        List<MemberTeamDto> memberTeamDtos = memberJpaRepository.searchByBuilder(condition);
+        //쌓인 insert 를 내보내고, 이 트랜잭션에서 저장한 팀이 담긴 트랜잭션 범위 사전을 미리 로딩해서 검색이 실행한 문장만 센다.
+        entityManager.flush();
+        entityManager.clear();
+        teamNameDictionary.teamIds("teamB");
 
-        assertThat(memberTeamDtos).extracting("username").containsExactly("member4");
+        List<MemberTeamDto> memberTeamDtos;
+        List<MemberTeamDto> search;
+        try (StatementCount count = StatementCount.start()) {
+            memberTeamDtos = memberJpaRepository.searchByBuilder(condition);
+            search = memberJpaRepository.search(condition);
+            //검색마다 한번, 팀 이름은 사전에서 채운다.
+            assertThat(count.statements()).as("%s", count).isEqualTo(2);
+        }
 
-        List<MemberTeamDto> search = memberJpaRepository.search(condition);
+        assertThat(memberTeamDtos).extracting("username").containsExactly("member4");
 
         assertThat(search).extracting("username").containsExactly("member4");
+        assertThat(search).extracting("teamName").containsExactly("teamB");
+    }
+
+    @Test
+    void findAllByIdsTest() {
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30);
+        entityManager.persist(member1);
+        entityManager.persist(member2);
+        entityManager.persist(member3);
+        entityManager.flush();
+        entityManager.clear();
+
+        //영속성 컨텍스트에 있는 회원은 조회하지 않는다.
+        Member cached = entityManager.find(Member.class, member2.getId());
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Member> result;
+        try (StatementCount count = StatementCount.start()) {
+            result = memberJpaRepository.findAllByIds(
+                    Arrays.asList(member3.getId(), member2.getId(), -1L, member1.getId(), member3.getId()));
+            //team 지연 로딩까지 포함해서 한번 (N+1 없음)
+            result.forEach(found -> Hibernate.initialize(found.getTeam()));
+            assertThat(count.statements()).as("%s", count).isEqualTo(1);
+        }
+
+        //요청 순서, 중복 / 없는 id 제외
+        assertThat(result).extracting("username").containsExactly("member3", "member2", "member1");
+        assertThat(result.get(1)).isSameAs(cached);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        //team 은 fetch join 으로 같이 조회했다.
+        assertThat(Hibernate.isInitialized(result.get(2).getTeam())).isTrue();
+        assertThat(result.get(2).getTeam().getName()).isEqualTo("teamA");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package study.querydsl.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    Flux 검색과 /v1/members/stream(NDJSON)을 실제 서버(RANDOM_PORT)로 확인한다.
+    R2DBC 커넥션은 JPA 트랜잭션에 참여하지 않아 커밋된 행만 보므로 회원 100명을 setUp 에서 커밋하고 cleanUp 에서 지운다.
+*/
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MemberReactiveRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberReactiveRepository memberReactiveRepository;
+
+    @Autowired
+    MemberJdbcRepository memberJdbcRepository;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("reactiveTeamA");
+            Team teamB = new Team("reactiveTeamB");
+            entityManager.persist(teamA);
+            entityManager.persist(teamB);
+            for (int i = 0; i < 100; i++) {
+                entityManager.persist(new Member("reactive" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from Member m where m.username like 'reactive%'").executeUpdate();
+            entityManager.createQuery("delete from Team t where t.name like 'reactive%'").executeUpdate();
+        });
+    }
+
+    @Test
+    void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("reactiveTeamB");
+        condition.setAgeGoe(90);
+
+        List<MemberTeamDto> result = memberReactiveRepository.search(condition).collectList().block();
+        assertThat(result).extracting("username").containsExactly("reactive91", "reactive93", "reactive95", "reactive97", "reactive99");
+        assertThat(result).extracting("teamName").containsOnly("reactiveTeamB");
+
+        //JDBC 검색과 같은 결과 (같은 조건 / id 순서)
+        List<MemberTeamDto> jdbc = new ArrayList<>();
+        memberJdbcRepository.searchColumns(condition).forEach(row -> jdbc.add(new MemberTeamDto(
+                row.memberId(), row.username(), row.age(), row.teamId(), row.teamName())));
+        assertThat(result).isEqualTo(jdbc);
+
+        MemberSearchCondition multiValue = new MemberSearchCondition();
+        multiValue.setUsernames(Arrays.asList("reactive1", "reactive2", "reactive3"));
+        assertThat(memberReactiveRepository.search(multiValue).collectList().block()).hasSize(3);
+
+        MemberSearchCondition unknownTeam = new MemberSearchCondition();
+        unknownTeam.setTeamName("reactiveTeamZ");
+        assertThat(memberReactiveRepository.search(unknownTeam).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void searchTakeCancelsRemainingRows() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("reactiveTeamA");
+
+        //요청한 만큼만 받고 취소한다.
+        List<MemberTeamDto> firstTwo = memberReactiveRepository.search(condition).take(2).collectList().block();
+        assertThat(firstTwo).extracting("username").containsExactly("reactive0", "reactive2");
+    }
+
+    @Test
+    void streamEndpoint() throws Exception {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "/v1/members/stream?teamName=reactiveTeamA&ageLoe=9", String.class);
+
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_NDJSON)).isTrue();
+        String[] lines = response.getBody().split("\n");
+        assertThat(lines).hasSize(5);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("username").asText()).isEqualTo("reactive0");
+        assertThat(first.get("teamName").asText()).isEqualTo("reactiveTeamA");
+    }
+}
@@ -5,17 +5,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamField;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.jdbc.StatementCount;
+import study.querydsl.repository.support.MemberIdBatchLoader;
+import study.querydsl.repository.support.MultiValueFilters;
+import study.querydsl.repository.support.TeamNameDictionary;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
@@ -27,6 +39,9 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    TeamNameDictionary teamNameDictionary;
+
     @Test
     void bastTest() {
         Member member = new Member("member1", 10);
@@ -65,9 +80,16 @@ class MemberRepositoryTest {
         condition.setAgeLoe(40);
         condition.setTeamName("teamB");
 
-        List<MemberTeamDto> search = memberRepository.search(condition);
+        flushBeforeCount();
+        List<MemberTeamDto> search;
+        try (StatementCount count = StatementCount.start()) {
+            search = memberRepository.search(condition);
+            //팀 이름은 사전으로 바꾸므로 team 조회 없이 한번
+            assertThat(count.statements()).as("%s", count).isEqualTo(1);
+        }
 
         assertThat(search).extracting("username").containsExactly("member4");
+        assertThat(search).extracting("teamName").containsExactly("teamB");
     }
 
     @Test
@@ -94,7 +116,13 @@ class MemberRepositoryTest {
 
         PageRequest pageRequest = PageRequest.of(0,3);
 
-        Page<MemberTeamDto> result = memberRepository.searchPageSimple(condition, pageRequest);
+        flushBeforeCount();
+        Page<MemberTeamDto> result;
+        try (StatementCount count = StatementCount.start()) {
+            result = memberRepository.searchPageSimple(condition, pageRequest);
+            //content + count
+            assertThat(count.statements()).as("%s", count).isLessThanOrEqualTo(2);
+        }
 
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result.getContent()).extracting("username").containsExactly("member1","member2","member3");
@@ -124,12 +152,118 @@ class MemberRepositoryTest {
 
         PageRequest pageRequest = PageRequest.of(0,3);
 
-        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+        flushBeforeCount();
+        Page<MemberTeamDto> result;
+        try (StatementCount count = StatementCount.start()) {
+            result = memberRepository.searchPageComplex(condition, pageRequest);
+            //content + count, 결과의 팀 이름은 팀마다 조회하지 않는다.
+            assertThat(count.statements()).as("%s", count).isLessThanOrEqualTo(2);
+            assertThat(count.maxRepeats()).as("%s", count).isEqualTo(1);
+        }
 
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result.getContent()).extracting("username").containsExactly("member1","member2","member3");
     }
 
+    @Test
+    void searchFieldsTest() {
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<Map<String, Object>> usernames = memberRepository.searchFields(condition, EnumSet.of(MemberTeamField.USERNAME));
+        assertThat(usernames).extracting(row -> row.keySet()).containsOnly(Collections.singleton("username"));
+        //search 와 같이 id 순
+        assertThat(usernames).extracting(row -> row.get("username")).containsExactly("member3", "member4");
+
+        Page<Map<String, Object>> page = memberRepository.searchPageFields(new MemberSearchCondition(),
+                EnumSet.of(MemberTeamField.AGE, MemberTeamField.TEAM_NAME), PageRequest.of(0, 3));
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent().get(0)).containsOnlyKeys("age", "teamName");
+
+        Page<Map<String, Object>> sorted = memberRepository.searchPageFields(new MemberSearchCondition(),
+                EnumSet.of(MemberTeamField.USERNAME), PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age")));
+        assertThat(sorted.getContent()).extracting(row -> row.get("username")).containsExactly("member4", "member3", "member2");
+
+        //teamName 은 정렬할 수 없다. (컨트롤러에서 400)
+        assertThatThrownBy(() -> memberRepository.searchPageFields(new MemberSearchCondition(),
+                EnumSet.of(MemberTeamField.USERNAME), PageRequest.of(0, 3, Sort.by("teamName"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void searchMultiValueTest() {
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernames(Arrays.asList("member1", "member3", "member4", "member3", "unknown"));
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member3", "member4");
+
+        condition.setTeamNames(Arrays.asList("teamA", "teamC"));
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1");
+
+        //MultiValueFilters.CHUNK_SIZE 를 넘는 목록은 table 함수로 조인하는 JDBC 조회로 넘긴다. (크기 제한 없음)
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < MultiValueFilters.CHUNK_SIZE * 4; i++) {
+            usernames.add("member" + i);
+        }
+        MemberSearchCondition large = new MemberSearchCondition();
+        large.setUsernames(usernames);
+        large.setTeamNames(Arrays.asList("teamA", "teamB"));
+        assertThat(memberRepository.search(large)).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4");
+        assertThat(memberRepository.search(large)).extracting("teamName")
+                .containsExactly("teamA", "teamA", "teamB", "teamB");
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(large, PageRequest.of(0, 3));
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+    }
+
+    @Test
+    void findAllByIdsTest() {
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Member member = new Member("member" + i, i);
+            entityManager.persist(member);
+            ids.add(member.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        //CHUNK_SIZE 를 넘으면 나눠서 조회한다. 결과는 요청 순서대로.
+        Collections.reverse(ids);
+        List<Member> result;
+        try (StatementCount count = StatementCount.start()) {
+            result = memberRepository.findAllByIds(ids);
+            //건마다 조회하지 않고 청크 수만큼만 조회한다.
+            int chunks = (ids.size() + MemberIdBatchLoader.CHUNK_SIZE - 1) / MemberIdBatchLoader.CHUNK_SIZE;
+            assertThat(count.statements()).as("%s", count).isEqualTo(chunks);
+        }
+        assertThat(result).hasSize(600);
+        assertThat(result).extracting("id").containsExactlyElementsOf(ids);
+    }
+
     @Test
     void querydslPredicateExecuteTest() {
 
@@ -153,4 +287,11 @@ class MemberRepositoryTest {
             System.out.println("findMember = " + findMember);
         }
     }
-}
\ No newline at end of file
+
+    //쌓인 insert 를 내보내고, 이 트랜잭션에서 저장한 팀이 담긴 트랜잭션 범위 사전을 미리 로딩해서 검색이 실행한 문장만 센다.
+    private void flushBeforeCount() {
+        entityManager.flush();
+        entityManager.clear();
+        teamNameDictionary.teamIds("teamA");
+    }
+}
@@ -0,0 +1,199 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.RelationalPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.jdbc.StatementCount;
+import study.querydsl.repository.support.MultiValueFilters;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//컬럼 인덱스가 먼저 답하지 않도록 끈다.
+@SpringBootTest(properties = {"app.search.backend=sql", "app.columnar-index.enabled=false"})
+@Transactional
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void search() {
+        Team teamA = new Team("sqlTeamA");
+        Team teamB = new Team("sqlTeamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("sqlMember1", 10, teamA));
+        entityManager.persist(new Member("sqlMember2", 20, teamA));
+        entityManager.persist(new Member("sqlMember3", 30, teamB));
+        entityManager.persist(new Member("sqlMember4", 40, teamB));
+        entityManager.persist(new Member("sqlMember5", 50));
+        //SQL 은 영속성 컨텍스트를 거치지 않는다.
+        entityManager.flush();
+
+        //쓰기 트랜잭션 안에서는 JPA 로 조회해야 한다.
+        assertThat(memberSqlRepository.canServe()).isFalse();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sqlTeamB");
+        condition.setAgeGoe(35);
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+        assertThat(result).extracting("username").containsExactly("sqlMember4");
+        assertThat(result.get(0).getTeamName()).isEqualTo("sqlTeamB");
+        //JPA 구현과 같은 결과
+        assertThat(result).isEqualTo(memberJpaRepository.search(condition));
+
+        MemberSearchCondition multiValue = new MemberSearchCondition();
+        multiValue.setUsernames(Arrays.asList("sqlMember1", "sqlMember3", "sqlMember5"));
+        try (StatementCount count = StatementCount.start()) {
+            assertThat(memberSqlRepository.search(multiValue)).extracting("username")
+                    .containsExactlyInAnyOrder("sqlMember1", "sqlMember3", "sqlMember5");
+            //Hibernate 패딩이 적용되지 않으므로 직접 2의 거듭제곱(4)으로 맞춘다.
+            assertThat(count.sqls()).as("%s", count).anyMatch(sql -> sql.contains("in (?, ?, ?, ?)"));
+        }
+        assertThat(memberSqlRepository.search(multiValue)).extracting("teamName")
+                .containsExactlyInAnyOrder("sqlTeamA", "sqlTeamB", null);
+
+        //목록이 CHUNK_SIZE 를 넘으면 배열 파라미터 하나를 table 함수로 조인한다.
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i <= MultiValueFilters.CHUNK_SIZE; i++) {
+            usernames.add("sqlMember" + i);
+        }
+        MemberSearchCondition large = new MemberSearchCondition();
+        large.setUsernames(usernames);
+        large.setAgeLoe(30);
+        try (StatementCount count = StatementCount.start()) {
+            assertThat(memberSqlRepository.search(large)).extracting("username")
+                    .containsExactly("sqlMember1", "sqlMember2", "sqlMember3");
+            assertThat(count.sqls()).as("%s", count).anyMatch(sql -> sql.contains("table(x varchar = ?)"));
+        }
+
+        MemberSearchCondition unknownTeam = new MemberSearchCondition();
+        unknownTeam.setTeamNames(Collections.singletonList("sqlTeamZ"));
+        assertThat(memberSqlRepository.search(unknownTeam)).isEmpty();
+    }
+
+    @Test
+    void searchPageComplex() {
+        Team team = new Team("sqlTeamPage");
+        entityManager.persist(team);
+        for (int i = 0; i < 5; i++) {
+            entityManager.persist(new Member("sqlPage" + i, i, team));
+        }
+        entityManager.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sqlTeamPage");
+
+        Page<MemberTeamDto> page = memberSqlRepository.searchPageComplex(condition, PageRequest.of(0, 3));
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+
+        Page<MemberTeamDto> last = memberSqlRepository.searchPageComplex(condition, PageRequest.of(1, 3));
+        assertThat(last.getContent()).hasSize(2);
+        assertThat(last.getTotalElements()).isEqualTo(5);
+    }
+
+    //테스트 트랜잭션 밖(canServe)에서 공개 저장소를 거쳐 SQL 구현으로 조회한다.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void searchThroughRepositories() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Team team = new Team("sqlTeamPublic");
+            entityManager.persist(team);
+            for (int i = 0; i < 5; i++) {
+                entityManager.persist(new Member("sqlPublic" + i, i * 10, team));
+            }
+        });
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("sqlTeamPublic");
+            condition.setAgeGoe(20);
+            try (StatementCount count = StatementCount.start()) {
+                assertThat(memberRepository.search(condition)).extracting("username")
+                        .containsExactly("sqlPublic2", "sqlPublic3", "sqlPublic4");
+                assertThat(memberJpaRepository.search(condition)).extracting("teamName")
+                        .containsExactly("sqlTeamPublic", "sqlTeamPublic", "sqlTeamPublic");
+                Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+                assertThat(page.getContent()).hasSize(2);
+                assertThat(page.getTotalElements()).isEqualTo(3);
+                //Hibernate 가 만든 member 조회(member0_)가 없다.
+                assertThat(count.sqls()).as("%s", count).noneMatch(sql -> sql.contains("member0_"));
+            }
+        } finally {
+            transaction.executeWithoutResult(status -> {
+                entityManager.createQuery("delete from Member m where m.username like 'sqlPublic%'").executeUpdate();
+                entityManager.createQuery("delete from Team t where t.name = 'sqlTeamPublic'").executeUpdate();
+            });
+        }
+    }
+
+    //SMember / STeam 의 컬럼이 엔티티로 만든 실제 스키마와 같은지 (양쪽 컬럼 목록, 타입, 크기, null 허용)
+    @Test
+    void metaModelMatchesSchema() throws Exception {
+        for (RelationalPath<?> table : Arrays.asList(SMember.member, STeam.team)) {
+            Map<String, String> schemaColumns = new TreeMap<>();
+            try (Connection connection = dataSource.getConnection();
+                 ResultSet resultSet = connection.getMetaData().getColumns(null, table.getSchemaName(), table.getTableName(), null)) {
+                while (resultSet.next()) {
+                    schemaColumns.put(resultSet.getString("COLUMN_NAME"), describe(resultSet.getInt("DATA_TYPE"),
+                            resultSet.getInt("COLUMN_SIZE"), resultSet.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls));
+                }
+            }
+            Map<String, String> modelColumns = new TreeMap<>();
+            for (Path<?> column : table.getColumns()) {
+                ColumnMetadata metadata = table.getMetadata(column);
+                modelColumns.put(metadata.getName(), describe(metadata.getJdbcType(), metadata.getSize(), metadata.isNullable()));
+            }
+            assertThat(modelColumns).as(table.getTableName()).isEqualTo(schemaColumns);
+        }
+    }
+
+    private static String describe(int jdbcType, int size, boolean nullable) {
+        return JDBCType.valueOf(jdbcType) + "(" + size + ")" + (nullable ? "" : " not null");
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamAgeStatistics;
+import study.querydsl.dto.TeamStatisticsReport;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamStatisticsRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TeamStatisticsRepository teamStatisticsRepository;
+
+    @Test
+    void statistics() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+        entityManager.persist(new Member("member5", 50));
+
+        TeamStatisticsReport report = teamStatisticsRepository.statistics(new MemberSearchCondition());
+
+        assertThat(report.getTeams()).extracting("teamName").containsExactly("teamA", "teamB", null);
+        assertThat(report.getTeams()).extracting("count").containsExactly(2L, 2L, 1L);
+        assertThat(report.getTeams()).extracting("ageAvg").containsExactly(15.0, 35.0, 50.0);
+
+        TeamAgeStatistics total = report.getTotal();
+        assertThat(total.getCount()).isEqualTo(5);
+        assertThat(total.getAgeSum()).isEqualTo(150);
+        assertThat(total.getAgeAvg()).isEqualTo(30.0);
+        assertThat(total.getAgeMin()).isEqualTo(10);
+        assertThat(total.getAgeMax()).isEqualTo(50);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        TeamStatisticsReport filtered = teamStatisticsRepository.statistics(condition);
+        assertThat(filtered.getTeams()).extracting("count").containsExactly(1L);
+        assertThat(filtered.getTotal().getAgeMax()).isEqualTo(40);
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.IndexRecommendation;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+@SpringBootTest
+@Transactional
+class IndexAdvisorTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Test
+    void recommend() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            entityManager.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+        entityManager.flush();
+
+        indexAdvisor.reset();
+
+        MemberSearchCondition teamCondition = new MemberSearchCondition();
+        teamCondition.setTeamName("teamB");
+        teamCondition.setAgeGoe(0);
+        teamCondition.setAgeLoe(40);
+        for (int i = 0; i < 3; i++) {
+            indexAdvisor.record(teamCondition);
+        }
+
+        MemberSearchCondition usernameCondition = new MemberSearchCondition();
+        usernameCondition.setUsername("member1");
+        indexAdvisor.record(usernameCondition);
+
+        List<IndexRecommendation> recommendations = indexAdvisor.recommend();
+
+        assertThat(recommendations).extracting("frequency").containsExactly(3L, 1L);
+
+        IndexRecommendation teamAge = recommendations.get(0);
+        assertThat(teamAge.getColumns()).containsExactly("team_id", "age");
+        assertThat(teamAge.getCoveredBy()).isEqualTo("idx_member_team_age");
+        //팀 2개 중 1개(1/2) * 나이 0~40 / 0~90 (41/91)
+        assertThat(teamAge.getEstimatedSelectivity()).isCloseTo(0.5 * 41 / 91, offset(0.0001));
+        assertThat(teamAge.getDdl()).isEqualTo("create index idx_member_team_id_age on member (team_id, age)");
+
+        IndexRecommendation username = recommendations.get(1);
+        assertThat(username.getColumns()).containsExactly("username");
+        assertThat(username.getCoveredBy()).isEqualTo("idx_member_username_age");
+    }
+}
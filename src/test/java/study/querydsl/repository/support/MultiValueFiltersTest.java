@@ -0,0 +1,70 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.QMember;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultiValueFiltersTest {
+
+    @Test
+    void appendPaddedIn() {
+        StringBuilder sql = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+
+        MultiValueFilters.appendIn(sql, args, "m.username", Arrays.asList("a", "b", "a", null, "c"), "varchar");
+
+        //중복 / null 제거 후 3개 -> 4개로 패딩 (마지막 값 반복)
+        assertThat(sql.toString()).isEqualTo("m.username in (?, ?, ?, ?)");
+        assertThat(args).containsExactly("a", "b", "c", "c");
+    }
+
+    @Test
+    void appendTableIn() {
+        StringBuilder sql = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i <= MultiValueFilters.CHUNK_SIZE; i++) {
+            ids.add(i);
+        }
+
+        MultiValueFilters.appendIn(sql, args, "m.team_id", ids, "bigint");
+
+        assertThat(sql.toString()).isEqualTo("m.team_id in (select x from table(x bigint = ?))");
+        assertThat(args).hasSize(1);
+        assertThat((Object[]) args.get(0)).hasSize(MultiValueFilters.CHUNK_SIZE + 1);
+    }
+
+    @Test
+    void large() {
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < MultiValueFilters.CHUNK_SIZE; i++) {
+            usernames.add("member" + i);
+        }
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(MultiValueFilters.large(condition)).isFalse();
+
+        condition.setUsernames(usernames);
+        assertThat(MultiValueFilters.large(condition)).isFalse();
+
+        usernames.add("member" + MultiValueFilters.CHUNK_SIZE);
+        assertThat(MultiValueFilters.large(condition)).isTrue();
+        //JPA 로 조회하는 경우(large 가 아닌 곳)에도 목록 크기를 제한하지 않는다.
+        assertThat(MultiValueFilters.usernameIn(QMember.member.username, usernames)).isNotNull();
+        assertThat(MultiValueFilters.usernameIn(QMember.member.username, null)).isNull();
+    }
+
+    @Test
+    void paddedSize() {
+        assertThat(MultiValueFilters.paddedSize(1)).isEqualTo(1);
+        assertThat(MultiValueFilters.paddedSize(2)).isEqualTo(2);
+        assertThat(MultiValueFilters.paddedSize(3)).isEqualTo(4);
+        assertThat(MultiValueFilters.paddedSize(9)).isEqualTo(16);
+        assertThat(MultiValueFilters.paddedSize(512)).isEqualTo(512);
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Team;
+import study.querydsl.jdbc.StatementCount;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//트랜잭션 경계를 직접 다루므로 테스트 트랜잭션을 쓰지 않는다.
+@SpringBootTest
+class TeamNameDictionaryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamNameDictionary teamNameDictionary;
+
+    @Test
+    void rolledBackTeamIsNotShared() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Long> teamIdsInTransaction = transaction.execute(status -> {
+            entityManager.persist(new Team("dictionaryRollback"));
+            List<Long> teamIds = teamNameDictionary.teamIds("dictionaryRollback");
+            status.setRollbackOnly();
+            return teamIds;
+        });
+
+        //저장한 트랜잭션에서는 보이고, 롤백 후에는 어디에서도 보이지 않는다.
+        assertThat(teamIdsInTransaction).hasSize(1);
+        assertThat(teamNameDictionary.teamIds("dictionaryRollback")).isEmpty();
+        assertThat(teamNameDictionary.teamName(teamIdsInTransaction.get(0))).isNull();
+    }
+
+    @Test
+    void unknownTeamIdsReloadOnce() {
+        teamNameDictionary.teamIds("teamA");
+
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            content.add(new MemberTeamDto(i, "member" + i, 10, -i, null));
+        }
+        try (StatementCount count = StatementCount.start()) {
+            teamNameDictionary.fillTeamNames(content);
+            assertThat(count.statements()).as("%s", count).isLessThanOrEqualTo(1);
+        }
+        assertThat(content).extracting("teamName").containsOnlyNulls();
+    }
+}